@@ -0,0 +1,96 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Objects allocated per card bind, counted with Debug's allocation counter.
+ *
+ * - full:  a bind with no payload (new row in the card)
+ * - qty:   a bind with PAYLOAD_QTY (only the quantity changed)
+ *
+ * Counts and times are printed to logcat under "CardBind".
+ */
+@RunWith(AndroidJUnit4.class)
+public class CardBindAllocationBenchmark {
+
+    private static final String TAG = "CardBind";
+    private static final int ITEMS = 200;
+    private static final int BINDS = 10_000;
+
+    @Test
+    public void quantityPayloadBindDoesNotAllocate() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(this::measure);
+    }
+
+    @SuppressWarnings("deprecation")   // the alloc counter is old, but still counts on ART
+    private void measure() {
+        Context ctx = new ContextThemeWrapper(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                R.style.Theme_BrookeSellerInventoryApp);
+
+        List<Item> rows = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            rows.add(new Item(i + 1, "Item " + i, null, "S" + i, i * 7, null, null, 1, 0));
+        }
+        InventoryCardAdapter adapter = new InventoryCardAdapter(item -> { });
+        adapter.submitList(rows);                 // first list is set right away
+        InventoryCardAdapter.VH h = adapter.onCreateViewHolder(new FrameLayout(ctx), 0);
+        List<Object> none = Collections.emptyList();
+        List<Object> qty = Collections.singletonList(InventoryCardAdapter.PAYLOAD_QTY);
+
+        // warm up: first binds set up the TextViews' text wrappers
+        for (int i = 0; i < ITEMS; i++) adapter.onBindViewHolder(h, i, none);
+
+        Run full = count(adapter, h, none);
+        Run payload = count(adapter, h, qty);
+
+        Log.i(TAG, "full bind:    " + full);
+        Log.i(TAG, "qty payload:  " + payload);
+        assertTrue("payload bind should allocate less than a full bind",
+                payload.allocs <= full.allocs);
+        assertTrue("payload bind should not allocate per bind", payload.allocs < BINDS / 100);
+    }
+
+    @SuppressWarnings("deprecation")
+    private Run count(InventoryCardAdapter adapter, InventoryCardAdapter.VH h, List<Object> payloads) {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < BINDS; i++) adapter.onBindViewHolder(h, i % ITEMS, payloads);
+        long ns = System.nanoTime() - t0;
+        Debug.stopAllocCounting();
+        return new Run(Debug.getThreadAllocCount(), ns);
+    }
+
+    private static final class Run {
+        final int allocs;
+        final long ns;
+
+        Run(int allocs, long ns) {
+            this.allocs = allocs;
+            this.ns = ns;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d objects for %d binds (%.2f/bind), %.1f µs/bind",
+                    allocs, BINDS, allocs / (double) BINDS, ns / 1000.0 / BINDS);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Applying a cycle count big enough that its changed rows don't fit in one
+ * cursor window: every item is set once, and the ledger matches.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CycleCountTest {
+
+    private static final String DB_NAME = "cycle-count.db";
+    private static final int ITEMS = 50_000;
+
+    private Context ctx;
+    private InventoryDatabase db;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ctx.deleteDatabase(DB_NAME);
+        db = new InventoryDatabase(ctx, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void appliesLargeSessionOnce() throws Exception {
+        StringBuilder csv = new StringBuilder(ITEMS * 40).append("name,upc,sku,quantity\n");
+        for (int i = 0; i < ITEMS; i++) {
+            csv.append("Item ").append(i).append(",U").append(i).append(",S").append(i).append(",10\n");
+        }
+        assertEquals(ITEMS, new InventoryCsvImporter(db).importCsv(new StringReader(csv.toString()), null).inserted);
+
+        // every tenth item counts what it already has, the rest come up 3 short
+        long session = db.openCountSession();
+        HashMap<String, Integer> lines = new HashMap<>();
+        for (int i = 0; i < ITEMS; i++) lines.put("S" + i, i % 10 == 0 ? 10 : 7);
+        lines.put("NOPE", 4);
+        db.saveCountLines(session, lines);
+
+        int changed = ITEMS - ITEMS / 10;
+        assertEquals(changed, db.applyCountSession(session));
+
+        assertEquals(10, db.findItemBySku("S0").quantity);
+        assertEquals(7, db.findItemBySku("S1").quantity);
+        assertEquals(7, db.findItemBySku("S" + (ITEMS - 1)).quantity);
+        assertEquals(ITEMS * 7L + ITEMS / 10 * 3L, db.getInventoryStats().unitCount);
+
+        try (Cursor c = db.getReadableDatabase().query("SELECT COUNT(*), TOTAL(delta) FROM " +
+                StockMovementEntity.TABLE + " WHERE reason = ?", new Object[] { StockLedger.REASON_COUNT })) {
+            assertTrue(c.moveToFirst());
+            assertEquals(changed, c.getInt(0));
+            assertEquals(-3L * changed, c.getLong(1));
+        }
+        // the session is closed and its lines are gone
+        assertTrue(db.loadCountLines(session).isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares rows/second of the old per-row path (exists checks + createItem)
+ * with the streaming CSV importer. Results are printed to logcat under "ImportBench".
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryImportBenchmark {
+
+    private static final String TAG = "ImportBench";
+    private static final String DB_NAME = "import-bench.db";
+    private static final int ROWS = 20_000;
+
+    private Context ctx;
+    private InventoryDatabase db;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ctx.deleteDatabase(DB_NAME);
+        db = new InventoryDatabase(ctx, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void bulkImportVsPerRowInsert() throws Exception {
+        // old path: what the Add Item dialog does for every row
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            String sku = "OLD-" + i;
+            String upc = "0" + (100000000000L + i);
+            if (!db.itemExistsBySku(sku) && !db.itemExistsByUpc(upc)) {
+                db.createItem("Item " + i, upc, sku, "desc " + i, i % 50);
+            }
+        }
+        long perRowMs = Math.max(1, (System.nanoTime() - start) / 1_000_000L);
+        double perRowRate = ROWS * 1000.0 / perRowMs;
+
+        // new path: one CSV stream, chunked transactions
+        StringBuilder csv = new StringBuilder(ROWS * 48);
+        csv.append("name,sku,upc,short_description,quantity\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("Item ").append(i).append(",NEW-").append(i)
+                    .append(",1").append(100000000000L + i)
+                    .append(",\"desc, ").append(i).append("\",").append(i % 50).append('\n');
+        }
+        InventoryCsvImporter.Result r = new InventoryCsvImporter(db)
+                .importCsv(new StringReader(csv.toString()), null);
+
+        Log.i(TAG, String.format("per-row: %d rows in %d ms (%.0f rows/s)", ROWS, perRowMs, perRowRate));
+        Log.i(TAG, String.format("bulk:    %d rows in %d ms (%.0f rows/s)", r.rowsRead, r.elapsedMs, r.rowsPerSecond()));
+
+        // rates are logged, not asserted: they depend on the device and what else runs on it
+        assertEquals(ROWS, r.inserted);
+        assertEquals(0, r.rejected);
+        assertEquals(2 * ROWS, db.getInventoryStats().skuCount);
+    }
+
+    @Test
+    public void rejectsDuplicatesAndBadRows() throws Exception {
+        db.createItem("Existing", "999", "EX-1", null, 1);
+        String csv = "sku,name,upc,quantity\n"
+                + "A-1,Alpha,111,5\n"
+                + "A-1,Alpha again,112,5\n"      // dup sku in file
+                + "B-1,Beta,111,5\n"             // dup upc in file
+                + "EX-1,Clash,998,5\n"           // sku already in db
+                + "F-1,Foxtrot,998,5\n"          // 998 wasn't taken by the clashing row
+                + "C-1,,113,5\n"                 // missing name
+                + "D-1,Delta,114,-3\n"           // negative qty
+                + "E-1,Echo,115,\n"              // empty qty means 0
+                + "B-1,Beta,116,5\n";            // B-1 wasn't taken by the rejected row
+        InventoryCsvImporter.Result r = new InventoryCsvImporter(db, 2)
+                .importCsv(new StringReader(csv), null);
+
+        assertEquals(9, r.rowsRead);
+        assertEquals(4, r.inserted);
+        assertEquals(5, r.rejected);
+        assertNotNull(db.findItemByUpc("998"));
+        assertEquals("F-1", db.findItemByUpc("998").sku);
+        assertEquals(3, r.rejections.get(0).line);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrading an inventory.db keeps its items. The versionN tests build the file
+ * the way the old hand-written helper's onCreate did, with a few rows in it,
+ * then open it through Room. roomVersion10WithExtras upgrades a file Room made.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryMigrationTest {
+
+    private static final String DB_NAME = "migration-test.db";
+    private static final String INDEX_QUERY =
+            "SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = ?";
+
+    private Context ctx;
+    private InventoryDatabase db;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        if (db != null) db.close();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void version4KeepsItems() {
+        SQLiteDatabase old = create(4);
+        createItems(old, true);
+        createSearch(old);
+        old.execSQL("CREATE INDEX idx_items_zero ON items(name COLLATE NOCASE, _id) WHERE quantity = 0");
+        old.execSQL("CREATE TABLE inventory_stats (id INTEGER PRIMARY KEY CHECK(id = 1), " +
+                "sku_count INTEGER NOT NULL, unit_count INTEGER NOT NULL, zero_count INTEGER NOT NULL)");
+        old.execSQL("INSERT INTO inventory_stats VALUES (1, 2, 5, 1)");
+        old.close();
+
+        assertUpgraded();
+    }
+
+    @Test
+    public void version3KeepsItems() {
+        SQLiteDatabase old = create(3);
+        createItems(old, true);
+        createSearch(old);
+        old.close();
+
+        assertUpgraded();
+    }
+
+    @Test
+    public void version2KeepsItems() {
+        SQLiteDatabase old = create(2);
+        createItems(old, false);
+        createSearch(old);
+        old.close();
+
+        assertUpgraded();
+    }
+
+    @Test
+    public void version1KeepsItems() {
+        SQLiteDatabase old = create(1);
+        createItems(old, false);
+        old.close();
+
+        assertUpgraded();
+    }
+
+    @Test
+    public void roomVersion10WithExtras() {
+        // a current file, with the partial indexes and triggers added on open
+        db = new InventoryDatabase(ctx, DB_NAME);
+        db.createItem("Apple", "100", "A-1", null, 5);
+        db.createItem("Banana", "200", "B-1", null, 0);
+        db.close();
+        db = null;
+
+        // take it back to version 10: photos came in with 11
+        SQLiteDatabase old = SQLiteDatabase.openDatabase(ctx.getDatabasePath(DB_NAME).getPath(),
+                null, SQLiteDatabase.OPEN_READWRITE);
+        assertTrue(hasIndex(old, "idx_items_zero"));
+        assertTrue(hasIndex(old, "idx_items_low"));
+        old.execSQL("ALTER TABLE items DROP COLUMN image_key");
+        old.setVersion(10);
+        old.close();
+
+        // Room's schema check after 10 -> 11 would fail on the indexes it doesn't know
+        assertUpgraded();
+        assertTrue("made again on open", hasIndex(db, "idx_items_zero"));
+        assertTrue("made again on open", hasIndex(db, "idx_items_low"));
+
+        // the low-stock list walks idx_items_low
+        db.createItem("Date", "400", "D-1", null, 2, 10);
+        try (Cursor c = db.listLowStockItems()) {
+            assertEquals(1, c.getCount());
+        }
+    }
+
+    private static boolean hasIndex(SQLiteDatabase db, String name) {
+        try (Cursor c = db.rawQuery(INDEX_QUERY, new String[] { name })) {
+            return c.moveToFirst();
+        }
+    }
+
+    private static boolean hasIndex(InventoryDatabase db, String name) {
+        try (Cursor c = db.getReadableDatabase().query(INDEX_QUERY, new Object[] { name })) {
+            return c.moveToFirst();
+        }
+    }
+
+    // Both rows are there with their quantities, and search and totals work on them
+    private void assertUpgraded() {
+        db = new InventoryDatabase(ctx, DB_NAME);
+        Item apple = db.findItemBySku("A-1");
+        assertNotNull(apple);
+        assertEquals(5, apple.quantity);
+        assertEquals("Apple", apple.name);
+        assertEquals(0, db.findItemBySku("B-1").quantity);
+
+        InventoryDatabase.Stats s = db.getInventoryStats();
+        assertEquals(2, s.skuCount);
+        assertEquals(5, s.unitCount);
+        assertEquals(1, s.zeroCount);
+
+        try (Cursor c = db.searchItems("ban", 10)) {
+            assertEquals(1, c.getCount());
+        }
+        // the triggers are back: a new row is counted and searchable
+        assertTrue(db.createItem("Cherry", "300", "C-1", null, 3) > apple.id);
+        assertEquals(3, db.getInventoryStats().skuCount);
+        try (Cursor c = db.searchItems("cher", 10)) {
+            assertEquals(1, c.getCount());
+        }
+        // the old CHECK(quantity >= 0) still holds
+        try {
+            db.getWritableDatabase().execSQL("UPDATE items SET quantity = -1 WHERE sku = 'A-1'");
+            fail("negative quantity was written");
+        } catch (SQLiteConstraintException expected) {
+            // the guard's RAISE(ABORT)
+        }
+        assertEquals(5, db.findItemBySku("A-1").quantity);
+    }
+
+    // The items table as the old onCreate made it, with two rows.
+    // The version column came in with version 3.
+    private static void createItems(SQLiteDatabase old, boolean withVersion) {
+        old.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "name TEXT NOT NULL, upc TEXT NOT NULL UNIQUE, sku TEXT NOT NULL UNIQUE, " +
+                "short_description TEXT, quantity INTEGER NOT NULL DEFAULT 0 CHECK(quantity >= 0)" +
+                (withVersion ? ", version INTEGER NOT NULL DEFAULT 0)" : ")"));
+        old.execSQL("CREATE INDEX idx_items_name ON items(name)");
+        old.execSQL("INSERT INTO items (name, upc, sku, quantity) VALUES " +
+                "('Apple', '100', 'A-1', 5), ('Banana', '200', 'B-1', 0)");
+    }
+
+    // The full-text table from version 2 on, already holding the rows
+    private static void createSearch(SQLiteDatabase old) {
+        old.execSQL("CREATE VIRTUAL TABLE items_fts USING fts4(content=\"items\", " +
+                "name, sku, upc, short_description, prefix=\"1,2,3\")");
+        old.execSQL("INSERT INTO items_fts (items_fts) VALUES ('rebuild')");
+    }
+
+    // An empty file at the given version, like SQLiteOpenHelper leaves it
+    private SQLiteDatabase create(int version) {
+        SQLiteDatabase old = SQLiteDatabase.openOrCreateDatabase(ctx.getDatabasePath(DB_NAME), null);
+        old.setVersion(version);
+        return old;
+    }
+}
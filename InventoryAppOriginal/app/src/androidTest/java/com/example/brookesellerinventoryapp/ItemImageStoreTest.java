@@ -0,0 +1,87 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Content-addressed photo store: same bytes give the same key, and the
+ * thumbnail is decoded down to about THUMB_PX on its short side.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ItemImageStoreTest {
+
+    private File root;
+    private ItemImageStore store;
+
+    @Before
+    public void setUp() {
+        Context ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        root = new File(ctx.getCacheDir(), "image-store-test");
+        deleteTree(root);
+        store = new ItemImageStore(ctx.getContentResolver(), root);
+    }
+
+    @After
+    public void tearDown() {
+        deleteTree(root);
+    }
+
+    @Test
+    public void sameBytesSameKey() throws Exception {
+        byte[] photo = jpeg(800, 600, Color.RED);
+        String a = store.add(new ByteArrayInputStream(photo));
+        String b = store.add(new ByteArrayInputStream(photo));
+        String c = store.add(new ByteArrayInputStream(jpeg(800, 600, Color.BLUE)));
+
+        assertTrue(ItemImageStore.isKey(a));
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+        assertEquals(photo.length, store.original(a).length());
+    }
+
+    @Test
+    public void thumbnailIsGridSized() throws Exception {
+        String key = store.add(new ByteArrayInputStream(jpeg(4000, 3000, Color.GREEN)));
+        store.makeThumbnail(key);
+
+        File thumb = store.thumbnail(key);
+        assertTrue(thumb.exists());
+        BitmapFactory.Options o = new BitmapFactory.Options();
+        o.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(thumb.getPath(), o);
+        assertEquals(ItemImageStore.THUMB_PX, Math.min(o.outWidth, o.outHeight));
+        assertEquals(thumb, store.forGrid(key));
+        assertTrue(thumb.length() < store.original(key).length());
+    }
+
+    private static byte[] jpeg(int w, int h, int color) {
+        Bitmap bmp = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        bmp.eraseColor(color);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bmp.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        bmp.recycle();
+        return out.toByteArray();
+    }
+
+    private static void deleteTree(File f) {
+        File[] kids = f.listFiles();
+        if (kids != null) for (File k : kids) deleteTree(k);
+        f.delete();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Full-table reads mixed with quantity writes, the way screens issue them.
+ *
+ * - before: rollback journal, every task on one shared thread (the old model)
+ * - after:  WAL, reads on a 3-thread pool, writes on one writer thread
+ *
+ * Throughput and write latency (submit to done) are printed to logcat under "MixedBench".
+ */
+@RunWith(AndroidJUnit4.class)
+public class MixedWorkloadBenchmark {
+
+    private static final String TAG = "MixedBench";
+    private static final String DB_NAME = "mixed-bench.db";
+    private static final int ITEMS = 5_000;
+    private static final int READS = 60;
+    private static final int WRITES_PER_READ = 20;
+    private static final int READERS = 3;
+
+    private Context ctx;
+    private InventoryDatabase db;
+
+    @After
+    public void tearDown() {
+        if (db != null) db.close();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void walWithWriterLaneVsOneSharedThread() throws Exception {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+        ExecutorService one = Executors.newSingleThreadExecutor();
+        Run before = run(false, one, one);
+        one.shutdown();
+
+        ExecutorService readers = Executors.newFixedThreadPool(READERS);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        Run after = run(true, readers, writer);
+        readers.shutdown();
+        writer.shutdown();
+
+        Log.i(TAG, "before (journal, one thread):  " + before);
+        Log.i(TAG, "after  (WAL, readers+writer):  " + after);
+        // times are logged, not asserted: they depend on the device and what else runs on it.
+        // run() already checked that every read saw every row and every write landed.
+        assertEquals(READS, after.reads);
+    }
+
+    // Seed a fresh file, then queue READS full reads with WRITES_PER_READ writes after each
+    private Run run(boolean wal, ExecutorService readPool, ExecutorService writeLane) throws Exception {
+        if (db != null) db.close();
+        ctx.deleteDatabase(DB_NAME);
+        db = new InventoryDatabase(ctx, DB_NAME, wal);
+        seed();
+
+        int writes = READS * WRITES_PER_READ;
+        long[] writeLatency = new long[writes];
+        CountDownLatch done = new CountDownLatch(READS + writes);
+        long start = System.nanoTime();
+        int w = 0;
+        for (int r = 0; r < READS; r++) {
+            readPool.execute(() -> {
+                try (Cursor c = db.listAllItems()) {
+                    assertEquals(ITEMS, InventoryDatabase.readItems(c).size());
+                }
+                done.countDown();
+            });
+            for (int k = 0; k < WRITES_PER_READ; k++, w++) {
+                final int slot = w;
+                final String sku = "S" + (w % ITEMS);
+                final long queued = System.nanoTime();
+                writeLane.execute(() -> {
+                    db.applyQuantityDelta(sku, 1);
+                    writeLatency[slot] = System.nanoTime() - queued;
+                    done.countDown();
+                });
+            }
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES));
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000L);
+
+        // every write landed
+        assertEquals(11, db.findItemBySku("S0").quantity);
+
+        Arrays.sort(writeLatency);
+        return new Run(elapsedMs, READS, writes,
+                writeLatency[writes / 2] / 1_000_000.0,
+                writeLatency[writes * 95 / 100] / 1_000_000.0);
+    }
+
+    private void seed() throws Exception {
+        StringBuilder csv = new StringBuilder(ITEMS * 40).append("name,upc,sku,quantity\n");
+        for (int i = 0; i < ITEMS; i++) {
+            csv.append("Item ").append(i).append(",U").append(i).append(",S").append(i).append(",10\n");
+        }
+        InventoryCsvImporter.Result r = new InventoryCsvImporter(db)
+                .importCsv(new StringReader(csv.toString()), null);
+        assertEquals(ITEMS, r.inserted);
+    }
+
+    private static final class Run {
+        final long elapsedMs;
+        final int reads, writes;
+        final double p50WriteMs, p95WriteMs;
+
+        Run(long elapsedMs, int reads, int writes, double p50WriteMs, double p95WriteMs) {
+            this.elapsedMs = elapsedMs;
+            this.reads = reads;
+            this.writes = writes;
+            this.p50WriteMs = p50WriteMs;
+            this.p95WriteMs = p95WriteMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d ms, %.0f reads/s, %.0f writes/s, write p50 %.1f ms, p95 %.1f ms",
+                    elapsedMs, reads * 1000.0 / elapsedMs, writes * 1000.0 / elapsedMs,
+                    p50WriteMs, p95WriteMs);
+        }
+    }
+}
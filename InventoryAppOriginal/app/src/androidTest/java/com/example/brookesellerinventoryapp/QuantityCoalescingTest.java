@@ -0,0 +1,172 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteFullException;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * StockLedger's per-SKU coalescing: a run of taps is one UPDATE, each tap stops
+ * at 0 on its own, a typed quantity replaces the taps before it, and a stale typed
+ * quantity is refused without losing the taps after it, and a batch that fails to
+ * write is kept and merged with what came after it.
+ * flush() is called directly so the test doesn't wait on the timer.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuantityCoalescingTest {
+
+    private static final String DB_NAME = "coalesce-test.db";
+
+    private Context ctx;
+    private InventoryDatabase db;
+    private StockLedger ledger;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ctx.deleteDatabase(DB_NAME);
+        db = new InventoryDatabase(ctx, DB_NAME);
+        ledger = new StockLedger(db, Runnable::run, new Handler(Looper.getMainLooper()),
+                ctx.getSharedPreferences("coalesce-test", Context.MODE_PRIVATE));
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void fortyTapsAreOneWrite() {
+        db.createItem("Apple", "100", "A-1", null, 50);
+        long before = db.findItemBySku("A-1").version;
+
+        for (int i = 0; i < 40; i++) ledger.record("A-1", -1, StockLedger.REASON_ADJUST);
+        // shown right away, nothing written yet
+        assertEquals(10, ledger.expectedQuantity("A-1", 50));
+        assertEquals(50, db.findItemBySku("A-1").quantity);
+
+        ledger.flush();
+        Item after = db.findItemBySku("A-1");
+        assertEquals(10, after.quantity);
+        assertEquals("one UPDATE for the whole run", before + 1, after.version);
+        assertEquals(10, ledger.expectedQuantity("A-1", after.quantity));
+    }
+
+    @Test
+    public void typedQuantityReplacesEarlierTaps() {
+        db.createItem("Pear", "200", "P-1", null, 5);
+        Item it = db.findItemBySku("P-1");
+
+        ledger.record("P-1", 3, StockLedger.REASON_ADJUST);
+        ledger.set("P-1", 20, it.version, null);
+        ledger.record("P-1", -2, StockLedger.REASON_ADJUST);
+        assertEquals(18, ledger.expectedQuantity("P-1", 5));
+
+        ledger.flush();
+        assertEquals(18, db.findItemBySku("P-1").quantity);
+    }
+
+    @Test
+    public void staleTypedQuantityIsRefused() throws Exception {
+        db.createItem("Plum", "300", "L-1", null, 5);
+        long seen = db.findItemBySku("L-1").version;
+        db.applyQuantityDelta("L-1", 1);                  // someone else, after we loaded
+
+        CountDownLatch conflict = new CountDownLatch(1);
+        ledger.set("L-1", 40, seen, conflict::countDown);
+        ledger.flush();
+
+        assertTrue(conflict.await(5, TimeUnit.SECONDS));
+        assertEquals(6, db.findItemBySku("L-1").quantity);
+    }
+
+    @Test
+    public void eachTapStopsAtZero() {
+        db.createItem("Fig", "400", "F-1", null, 0);
+
+        ledger.record("F-1", -1, StockLedger.REASON_ADJUST);
+        ledger.record("F-1", -1, StockLedger.REASON_ADJUST);
+        ledger.record("F-1", 1, StockLedger.REASON_ADJUST);
+        // what the screen showed: 0, 0, 1
+        assertEquals(1, ledger.expectedQuantity("F-1", 0));
+
+        ledger.flush();
+        assertEquals(1, db.findItemBySku("F-1").quantity);
+    }
+
+    @Test
+    public void tapsAfterStaleTypedQuantityAreKept() throws Exception {
+        db.createItem("Kiwi", "500", "K-1", null, 5);
+        long seen = db.findItemBySku("K-1").version;
+        db.applyQuantityDelta("K-1", 1);                  // someone else, after we loaded
+
+        CountDownLatch conflict = new CountDownLatch(1);
+        ledger.set("K-1", 40, seen, conflict::countDown);
+        ledger.record("K-1", 2, StockLedger.REASON_ADJUST);
+        ledger.flush();
+        assertTrue(conflict.await(5, TimeUnit.SECONDS));
+        assertEquals(6, db.findItemBySku("K-1").quantity);
+        // the +2 is still waiting, on top of the row that won
+        assertEquals(8, ledger.expectedQuantity("K-1", 6));
+
+        ledger.flush();
+        assertEquals(8, db.findItemBySku("K-1").quantity);
+    }
+
+    @Test
+    public void failedWriteIsKept() {
+        // a file whose next batch write fails, like on a full disk
+        db.close();
+        boolean[] fail = { true };
+        db = new InventoryDatabase(ctx, DB_NAME) {
+            @Override
+            Set<String> applyMovements(List<StockLedger.Movement> moves,
+                                       Consumer<Set<String>> afterCommit) {
+                if (fail[0]) {
+                    fail[0] = false;
+                    throw new SQLiteFullException("database or disk is full");
+                }
+                return super.applyMovements(moves, afterCommit);
+            }
+        };
+        ledger = new StockLedger(db, Runnable::run, new Handler(Looper.getMainLooper()),
+                ctx.getSharedPreferences("coalesce-test", Context.MODE_PRIVATE));
+        db.createItem("Lime", "600", "M-1", null, 10);
+        db.createItem("Date", "700", "D-1", null, 10);
+
+        ledger.record("M-1", -3, StockLedger.REASON_ADJUST);
+        ledger.set("D-1", 20, -1, null);
+        ledger.flush();
+        assertEquals(10, db.findItemBySku("M-1").quantity);
+        // nothing was written, and nothing is lost
+        assertEquals(7, ledger.expectedQuantity("M-1", 10));
+        assertEquals(20, ledger.expectedQuantity("D-1", 10));
+
+        // what comes next goes on top of the failed batch
+        ledger.record("M-1", -1, StockLedger.REASON_ADJUST);
+        ledger.record("D-1", 2, StockLedger.REASON_ADJUST);
+        assertEquals(6, ledger.expectedQuantity("M-1", 10));
+        assertEquals(22, ledger.expectedQuantity("D-1", 10));
+
+        ledger.flush();
+        assertEquals(6, db.findItemBySku("M-1").quantity);
+        assertEquals(22, db.findItemBySku("D-1").quantity);
+    }
+}
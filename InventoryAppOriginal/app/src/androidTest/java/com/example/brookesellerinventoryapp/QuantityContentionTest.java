@@ -0,0 +1,134 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Several threads adding to the same sku at once.
+ * The old read-then-write path loses updates; the single-statement delta must not.
+ * Ops/second for both are printed to logcat under "QtyContention".
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuantityContentionTest {
+
+    private static final String TAG = "QtyContention";
+    private static final String DB_NAME = "qty-contention.db";
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 250;
+
+    private Context ctx;
+    private InventoryDatabase db;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ctx.deleteDatabase(DB_NAME);
+        db = new InventoryDatabase(ctx, DB_NAME);
+        db.createItem("Old", "111", "OLD-1", null, 0);
+        db.createItem("New", "222", "NEW-1", null, 0);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void atomicDeltaLosesNoUpdates() throws Exception {
+        // old path: read in Java, write the computed value back
+        long oldMs = hammer(() -> {
+            int qty = quantityOf("OLD-1");
+            db.updateQuantityBySku("OLD-1", qty + 1);
+        });
+        // new path: quantity = MAX(0, quantity + ?) in one statement
+        long newMs = hammer(() -> db.applyQuantityDelta("NEW-1", 1));
+
+        int total = THREADS * OPS_PER_THREAD;
+        int oldQty = quantityOf("OLD-1");
+        int newQty = quantityOf("NEW-1");
+        Log.i(TAG, String.format("read+write: %d/%d kept in %d ms (%.0f ops/s)",
+                oldQty, total, oldMs, total * 1000.0 / oldMs));
+        Log.i(TAG, String.format("atomic:     %d/%d kept in %d ms (%.0f ops/s)",
+                newQty, total, newMs, total * 1000.0 / newMs));
+
+        // times are logged, not asserted: they depend on the device and what else runs on it
+        assertEquals("atomic delta lost updates", total, newQty);
+    }
+
+    @Test
+    public void deltaClampsAtZero() {
+        db.applyQuantityDelta("NEW-1", 3);
+        assertEquals(0, db.applyQuantityDelta("NEW-1", -10));
+        assertEquals(-1, db.applyQuantityDelta("MISSING", 1));
+    }
+
+    @Test
+    public void compareAndSetDetectsConflict() {
+        Item before = itemOf("NEW-1");
+        // another screen writes first
+        db.applyQuantityDelta("NEW-1", 5);
+
+        assertNull(db.updateQuantityIfVersion("NEW-1", before.version, 42));
+        assertEquals(5, quantityOf("NEW-1"));
+
+        Item fresh = itemOf("NEW-1");
+        Item after = db.updateQuantityIfVersion("NEW-1", fresh.version, 42);
+        assertNotNull(after);
+        assertEquals(42, after.quantity);
+        assertEquals(fresh.version + 1, after.version);
+    }
+
+    // Run op on every thread at once; returns elapsed ms
+    private long hammer(Runnable op) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.execute(() -> {
+                try {
+                    go.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) op.run();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        go.countDown();
+        assertTrue(done.await(2, TimeUnit.MINUTES));
+        long ms = Math.max(1, (System.nanoTime() - start) / 1_000_000L);
+        pool.shutdown();
+        return ms;
+    }
+
+    private Item itemOf(String sku) {
+        try (Cursor c = db.getItemBySku(sku)) {
+            List<Item> rows = InventoryDatabase.readItems(c);
+            assertFalse(rows.isEmpty());
+            return rows.get(0);
+        }
+    }
+
+    private int quantityOf(String sku) {
+        return itemOf(sku).quantity;
+    }
+}
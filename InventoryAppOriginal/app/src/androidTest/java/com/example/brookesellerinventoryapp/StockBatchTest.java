@@ -0,0 +1,123 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Batch stock API: per-line outcomes, and a few thousand deltas in one
+ * transaction against the same count of per-item adjustQuantityBySku calls,
+ * and a batch too big for one cursor window. Times are printed to logcat under "StockBatch".
+ */
+@RunWith(AndroidJUnit4.class)
+public class StockBatchTest {
+
+    private static final String TAG = "StockBatch";
+    private static final String DB_NAME = "stock-batch.db";
+    private static final int ITEMS = 2000;
+    // changed rows well past one 2 MB cursor window
+    private static final int LARGE = 50_000;
+
+    private Context ctx;
+    private InventoryDatabase db;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ctx.deleteDatabase(DB_NAME);
+        db = new InventoryDatabase(ctx, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void outcomesPerLine() {
+        db.createItem("Apple", "100", "A-1", null, 5);
+        db.createItem("Pear", "200", "P-1", null, 3);
+
+        StockBatch.Result r = db.applyStockBatch(new StockBatch()
+                .delta("A-1", 2)          // 7
+                .set("A-1", 10)           // 10
+                .delta("A-1", -3)         // 7
+                .delta("P-1", -9)         // 3 - 9, stops at 0
+                .delta("NOPE", 1)
+                .set("", 4)
+                .set("P-1", -1), StockLedger.REASON_BATCH);
+
+        assertEquals(7, r.rows.size());
+        assertEquals(StockBatch.Outcome.APPLIED, r.rows.get(0).outcome);
+        assertEquals(7, r.rows.get(2).quantity);
+        assertEquals(StockBatch.Outcome.CLAMPED, r.rows.get(3).outcome);
+        assertEquals(0, r.rows.get(3).quantity);
+        assertEquals(StockBatch.Outcome.UNKNOWN_SKU, r.rows.get(4).outcome);
+        assertEquals(StockBatch.Outcome.INVALID, r.rows.get(5).outcome);
+        assertEquals(StockBatch.Outcome.INVALID, r.rows.get(6).outcome);
+        assertEquals(3, r.applied);
+        assertEquals(1, r.clamped);
+        assertEquals(7, db.findItemBySku("A-1").quantity);
+        assertEquals(0, db.findItemBySku("P-1").quantity);
+    }
+
+    @Test
+    public void batchVsPerItemCalls() {
+        for (int i = 0; i < ITEMS; i++) db.createItem("Item " + i, "U" + i, "S" + i, null, 10);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ITEMS; i++) db.adjustQuantityBySku("S" + i, 1);
+        long perItemMs = Math.max(1, (System.nanoTime() - t0) / 1_000_000L);
+
+        StockBatch batch = new StockBatch();
+        for (int i = 0; i < ITEMS; i++) batch.delta("S" + i, 1);
+        StockBatch.Result r = db.applyStockBatch(batch, StockLedger.REASON_BATCH);
+        long batchMs = Math.max(1, r.elapsedMs);
+
+        Log.i(TAG, String.format("%d deltas: per item %d ms, batch %d ms (%.1fx)",
+                ITEMS, perItemMs, batchMs, perItemMs / (double) batchMs));
+        // times are logged, not asserted: they depend on the device and what else runs on it
+        assertEquals(ITEMS, r.applied);
+        assertEquals(12, db.findItemBySku("S0").quantity);
+        assertEquals(12, db.findItemBySku("S" + (ITEMS - 1)).quantity);
+    }
+
+    @Test
+    public void largeBatchAppliesOnce() throws Exception {
+        StringBuilder csv = new StringBuilder(LARGE * 40).append("name,upc,sku,quantity\n");
+        for (int i = 0; i < LARGE; i++) {
+            csv.append("Item ").append(i).append(",U").append(i).append(",S").append(i).append(",10\n");
+        }
+        assertEquals(LARGE, new InventoryCsvImporter(db).importCsv(new StringReader(csv.toString()), null).inserted);
+
+        StockBatch batch = new StockBatch();
+        for (int i = 0; i < LARGE; i++) batch.delta("S" + i, 2);
+        StockBatch.Result r = db.applyStockBatch(batch, StockLedger.REASON_BATCH);
+        Log.i(TAG, String.format("%d deltas in one batch: %d ms", LARGE, r.elapsedMs));
+
+        assertEquals(LARGE, r.applied);
+        assertEquals(12, r.rows.get(LARGE - 1).quantity);
+        assertEquals(12, db.findItemBySku("S0").quantity);
+        assertEquals(12, db.findItemBySku("S" + (LARGE / 2)).quantity);
+        assertEquals(12, db.findItemBySku("S" + (LARGE - 1)).quantity);
+        assertEquals(12L * LARGE, db.getInventoryStats().unitCount);
+        try (Cursor c = db.getReadableDatabase().query("SELECT TOTAL(delta) FROM " +
+                StockMovementEntity.TABLE + " WHERE reason = ?", new Object[] { StockLedger.REASON_BATCH })) {
+            assertTrue(c.moveToFirst());
+            assertEquals(2L * LARGE, c.getLong(0));
+        }
+    }
+}
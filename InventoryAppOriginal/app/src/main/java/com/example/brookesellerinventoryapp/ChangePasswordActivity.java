@@ -1,7 +1,6 @@
 package com.example.brookesellerinventoryapp;
 
 import android.content.SharedPreferences;
-import android.database.Cursor;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.widget.Button;
@@ -98,20 +97,7 @@ public class ChangePasswordActivity extends AppCompatActivity {
 
     // pull the first username in the table
     private String getFirstUsernameFromDb() {
-        Cursor c = null;
-        try {
-            c = loginDb.getReadableDatabase().query(
-                    "users",
-                    new String[]{"username"},
-                    null, null, null, null,
-                    "_id ASC",
-                    "1"
-            );
-            if (c.moveToFirst()) return c.getString(0);
-        } finally {
-            if (c != null) c.close();
-        }
-        return null;
+        return loginDb.firstUsername();
     }
 
     private void clearErrors() {
@@ -0,0 +1,111 @@
+package com.example.brookesellerinventoryapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads a CSV file one record at a time so big files never sit in memory.
+// Handles quoted fields, "" inside quotes, and line breaks inside quotes.
+public class CsvReader implements Closeable {
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos = 0;
+    private int len = 0;
+    private long lineNumber = 0;              // line where the last record started
+    private long nextLine = 1;                // line we are reading now
+    private final StringBuilder field = new StringBuilder(64);
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Line number (1-based) where the last returned record started
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Read the next record.
+     * @return the fields, or null at end of file
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        // skip blank lines between records
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') nextLine++;
+            c = read();
+        }
+        if (c == -1) return null;
+
+        lineNumber = nextLine;
+        List<String> out = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // file ended inside quotes, keep what we have
+                    out.add(field.toString());
+                    return out;
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');    // "" is one quote
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') nextLine++;
+                    field.append((char) c);
+                }
+            } else {
+                if (c == -1 || c == '\n' || c == '\r') {
+                    out.add(field.toString());
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') unread();
+                    }
+                    if (c != -1) nextLine++;
+                    return out;
+                } else if (c == ',') {
+                    out.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos >= len) {
+            len = in.read(buf, 0, buf.length);
+            pos = 0;
+            if (len <= 0) {
+                len = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    // Step back one char (only used right after read())
+    private void unread() {
+        if (len > 0 && pos > 0) pos--;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.brookesellerinventoryapp;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.view.KeyEvent;
+import android.view.inputmethod.EditorInfo;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.appbar.MaterialToolbar;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Stock-take screen. Staff enter or scan a SKU/UPC and either type the shelf
+ * count or scan once per unit. Counts are kept by CycleCountSession; "Review
+ * and apply" shows the variance against the database and applies every
+ * correction in one transaction.
+ *
+ * Leaving the screen keeps the session open, so counting can resume later.
+ */
+public class CycleCountActivity extends AppCompatActivity {
+
+    // how many differences the review dialog lists
+    private static final int REVIEW_LINES = 50;
+
+    // database helper
+    private InventoryDatabase db;
+    // shared reader threads and the one writer thread
+    private Executor io;
+    private Executor writer;
+    // handler to post results back to UI thread
+    private Handler main;
+
+    private EditText inputCode;
+    private EditText inputCounted;
+    private TextView tvLastCount;
+    private TextView tvCountTotals;
+    private Button btnReview;
+
+    // null until the open session has been loaded
+    private CycleCountSession session;
+
+    @Override protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_cycle_count);
+
+        // back arrow closes this screen; the session stays open
+        MaterialToolbar toolbar = findViewById(R.id.topAppBar);
+        if (toolbar != null) toolbar.setNavigationOnClickListener(v -> finish());
+
+        // shared DB and its threads
+        InventoryRepository repo = InventoryRepository.get(this);
+        db = repo.db();
+        io = repo.io();
+        writer = repo.writer();
+        main = repo.main();
+
+        inputCode = findViewById(R.id.inputCode);
+        inputCounted = findViewById(R.id.inputCounted);
+        tvLastCount = findViewById(R.id.tvLastCount);
+        tvCountTotals = findViewById(R.id.tvCountTotals);
+        btnReview = findViewById(R.id.btnReview);
+
+        // Enter (scanner or keyboard) or Done in either field records the line
+        TextView.OnEditorActionListener submit = (v, actionId, event) -> {
+            if (event != null) {
+                if (event.getKeyCode() != KeyEvent.KEYCODE_ENTER) return false;
+                // Enter arrives as key down and key up; only count it once
+                if (event.getAction() != KeyEvent.ACTION_DOWN) return true;
+            } else if (actionId != EditorInfo.IME_ACTION_DONE) {
+                return false;
+            }
+            submitLine();
+            return true;
+        };
+        inputCode.setOnEditorActionListener(submit);
+        inputCounted.setOnEditorActionListener(submit);
+        btnReview.setOnClickListener(v -> review());
+
+        // resume the open session (or start one) and build the lookup index
+        io.execute(db::warmIndex);
+        writer.execute(() -> {
+            CycleCountSession s = CycleCountSession.open(db, writer, main);
+            main.post(() -> {
+                if (isDestroyed()) return;
+                session = s;
+                btnReview.setEnabled(true);
+                tvLastCount.setText(s.size() == 0 ? "Ready" : "Resumed count");
+                showTotals();
+                inputCode.requestFocus();
+            });
+        });
+    }
+
+    @Override protected void onPause() {
+        super.onPause();
+        // save what's waiting now rather than in a couple of seconds
+        CycleCountSession s = session;
+        if (s != null) writer.execute(s::save);
+    }
+
+    // Resolve the code on a reader thread (index lookup), then record it here
+    private void submitLine() {
+        if (session == null || session.isClosed()) return;
+        final String code = String.valueOf(inputCode.getText()).trim();
+        final String countS = String.valueOf(inputCounted.getText()).trim();
+        if (code.isEmpty()) return;
+        final int counted;
+        try {
+            counted = countS.isEmpty() ? -1 : Integer.parseInt(countS);
+        } catch (NumberFormatException e) {
+            inputCounted.setError("Whole number");
+            return;
+        }
+        inputCode.setText(null);
+        inputCounted.setText(null);
+        inputCode.requestFocus();
+
+        io.execute(() -> {
+            Item it = db.findItemBySku(code);
+            if (it == null) it = db.findItemByUpc(code);
+            final Item found = it;
+            main.post(() -> onResolved(code, found, counted));
+        });
+    }
+
+    // Record one line (main thread); counted < 0 means "add 1"
+    private void onResolved(String code, Item item, int counted) {
+        if (isDestroyed() || session == null) return;
+        if (item == null) {
+            tvLastCount.setText("Unknown SKU/UPC: " + code);
+            return;
+        }
+        int now = counted < 0 ? session.add(item.sku, 1) : session.set(item.sku, counted);
+        tvLastCount.setText(item.name + " (SKU: " + item.sku + "): counted " + now);
+        showTotals();
+    }
+
+    private void showTotals() {
+        tvCountTotals.setText(session == null ? "" : session.size() + " SKUs counted");
+    }
+
+    // Compare with the database and ask before applying (summary on the writer,
+    // behind any save still queued)
+    private void review() {
+        final CycleCountSession s = session;
+        if (s == null || s.isClosed()) return;
+        btnReview.setEnabled(false);
+        writer.execute(() -> {
+            CycleCountSession.Summary sum = s.summary();
+            List<CycleCountSession.Variance> top = s.topVariances(REVIEW_LINES);
+            main.post(() -> {
+                if (isDestroyed()) return;
+                btnReview.setEnabled(true);
+                showReview(s, sum, top);
+            });
+        });
+    }
+
+    private void showReview(CycleCountSession s, CycleCountSession.Summary sum,
+                            List<CycleCountSession.Variance> top) {
+        StringBuilder msg = new StringBuilder();
+        msg.append(sum.lines).append(" SKUs counted, ")
+                .append(sum.corrections()).append(" differ (")
+                .append(sum.over).append(" over, ").append(sum.under).append(" under), net ")
+                .append(sum.netDelta >= 0 ? "+" : "").append(sum.netDelta).append(" units.");
+        if (sum.unknown > 0) msg.append("\n").append(sum.unknown).append(" SKUs are no longer in inventory and will be skipped.");
+        if (!top.isEmpty()) {
+            msg.append("\n");
+            for (CycleCountSession.Variance v : top) {
+                int d = v.counted - v.quantity;
+                msg.append("\n").append(v.name).append(" (").append(v.sku).append("): ")
+                        .append(v.quantity).append(" → ").append(v.counted)
+                        .append(" (").append(d > 0 ? "+" : "").append(d).append(")");
+            }
+            if (sum.corrections() > top.size()) {
+                msg.append("\n…and ").append(sum.corrections() - top.size()).append(" more");
+            }
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Cycle count")
+                .setMessage(msg)
+                .setPositiveButton(sum.corrections() == 0 ? "Close count" : "Apply " + sum.corrections(),
+                        (d, w) -> apply(s))
+                .setNeutralButton("Keep counting", null)
+                .setNegativeButton("Discard", (d, w) -> confirmDiscard(s))
+                .show();
+    }
+
+    private void apply(CycleCountSession s) {
+        btnReview.setEnabled(false);
+        writer.execute(() -> {
+            int changed = s.apply();
+            main.post(() -> {
+                Toast.makeText(this, changed + " quantities corrected", Toast.LENGTH_LONG).show();
+                if (!isDestroyed()) finish();
+            });
+        });
+    }
+
+    private void confirmDiscard(CycleCountSession s) {
+        new AlertDialog.Builder(this)
+                .setTitle("Discard count?")
+                .setMessage("All " + s.size() + " counted lines will be thrown away. Quantities won't change.")
+                .setPositiveButton("Discard", (d, w) -> writer.execute(() -> {
+                    s.discard();
+                    main.post(() -> {
+                        if (!isDestroyed()) finish();
+                    });
+                }))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+}
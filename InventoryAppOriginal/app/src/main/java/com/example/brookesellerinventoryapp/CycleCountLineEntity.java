@@ -0,0 +1,28 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Room entity for one counted SKU in a cycle count. Written in batches while
+ * counting, so a crash loses at most the last few seconds of counts.
+ * Keyed by (session_id, sku), so recounting a shelf replaces the row.
+ */
+@Entity(tableName = CycleCountLineEntity.TABLE, primaryKeys = { "session_id", "sku" })
+public class CycleCountLineEntity {
+
+    static final String TABLE = "cycle_count_lines";
+
+    @ColumnInfo(name = "session_id")
+    public long sessionId;
+
+    @NonNull
+    public String sku = "";
+
+    public int counted;
+
+    // epoch ms of the last change to this line
+    @ColumnInfo(name = "counted_at")
+    public long countedAt;
+}
@@ -0,0 +1,180 @@
+package com.example.brookesellerinventoryapp;
+
+import android.database.Cursor;
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A stock-take in progress.
+ *
+ * Counts live in memory (sku -> counted), so recording one is a map write on
+ * the main thread. Changed lines are saved in batches on the writer thread
+ * (SAVE_DELAY_MS after the first change, or as soon as SAVE_BATCH are waiting),
+ * and the open session is picked up again after a crash or restart.
+ *
+ * At the end, variance comes from one query joining the saved lines to items,
+ * and apply() writes every correction with one UPDATE ... FROM in one
+ * transaction, however many lines were counted.
+ */
+public final class CycleCountSession {
+
+    private static final long SAVE_DELAY_MS = 2000;
+    private static final int SAVE_BATCH = 2000;
+
+    // How a session compares with items
+    public static final class Summary {
+        public final int lines;             // SKUs counted
+        public final int unknown;           // counted SKUs that aren't in items
+        public final int over;              // counted more than the database has
+        public final int under;             // counted fewer
+        public final long netDelta;         // sum of (counted - quantity)
+
+        Summary(int lines, int unknown, int over, int under, long netDelta) {
+            this.lines = lines;
+            this.unknown = unknown;
+            this.over = over;
+            this.under = under;
+            this.netDelta = netDelta;
+        }
+
+        public int corrections() {
+            return over + under;
+        }
+    }
+
+    // One counted line that differs from the database
+    public static final class Variance {
+        public final String sku;
+        public final String name;
+        public final int quantity;
+        public final int counted;
+
+        Variance(String sku, String name, int quantity, int counted) {
+            this.sku = sku;
+            this.name = name;
+            this.quantity = quantity;
+            this.counted = counted;
+        }
+    }
+
+    final long id;
+    private final InventoryDatabase db;
+    private final Executor writer;
+    private final Handler main;
+
+    // all counts so far, and the ones not saved yet (guarded by this)
+    private final HashMap<String, Integer> counts;
+    private HashMap<String, Integer> dirty = new HashMap<>();
+    private boolean saveQueued = false;     // a delayed save is posted
+    private boolean batchQueued = false;    // a full batch's save is on the writer queue
+    private boolean closed = false;
+
+    private CycleCountSession(long id, HashMap<String, Integer> counts,
+                              InventoryDatabase db, Executor writer, Handler main) {
+        this.id = id;
+        this.counts = counts;
+        this.db = db;
+        this.writer = writer;
+        this.main = main;
+    }
+
+    /** Resume the open session, or start a new one (writer thread). */
+    static CycleCountSession open(InventoryDatabase db, Executor writer, Handler main) {
+        long id = db.openCountSession();
+        return new CycleCountSession(id, db.loadCountLines(id), db, writer, main);
+    }
+
+    /** Record the count for a SKU, replacing any earlier count. Returns the stored count. */
+    public synchronized int set(String sku, int counted) {
+        int value = Math.max(0, counted);
+        if (closed) return value;
+        counts.put(sku, value);
+        markDirty(sku, value);
+        return value;
+    }
+
+    /** Add to a SKU's count (one scan per unit). Returns the new count. */
+    public synchronized int add(String sku, int delta) {
+        Integer old = counts.get(sku);
+        return set(sku, (old == null ? 0 : old) + delta);
+    }
+
+    public synchronized int size() {
+        return counts.size();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void markDirty(String sku, int value) {
+        dirty.put(sku, value);
+        if (dirty.size() >= SAVE_BATCH) {
+            // one save takes everything dirty when it runs; scans until then just join it
+            if (!batchQueued) {
+                batchQueued = true;
+                writer.execute(this::save);
+            }
+        } else if (!saveQueued) {
+            saveQueued = true;
+            main.postDelayed(() -> writer.execute(this::save), SAVE_DELAY_MS);
+        }
+    }
+
+    /** Write the changed lines in one transaction (writer thread). */
+    void save() {
+        HashMap<String, Integer> batch;
+        synchronized (this) {
+            saveQueued = false;
+            batchQueued = false;
+            if (dirty.isEmpty()) return;
+            batch = dirty;
+            dirty = new HashMap<>();
+        }
+        db.saveCountLines(id, batch);
+    }
+
+    /** Save, then compare with items (writer thread). */
+    Summary summary() {
+        save();
+        return db.countSummary(id);
+    }
+
+    /** The biggest differences, for review (writer thread, right after summary()). */
+    List<Variance> topVariances(int limit) {
+        List<Variance> out = new ArrayList<>();
+        try (Cursor c = db.listCountVariance(id, limit)) {
+            int iSku = c.getColumnIndexOrThrow(InventoryDatabase.ItemsTable.COL_SKU);
+            int iName = c.getColumnIndexOrThrow(InventoryDatabase.ItemsTable.COL_NAME);
+            int iQty = c.getColumnIndexOrThrow(InventoryDatabase.ItemsTable.COL_QTY);
+            int iCounted = c.getColumnIndexOrThrow("counted");
+            while (c.moveToNext()) {
+                out.add(new Variance(c.getString(iSku), c.getString(iName),
+                        c.getInt(iQty), c.getInt(iCounted)));
+            }
+        }
+        return out;
+    }
+
+    /** Save, apply every correction in one transaction and close the session (writer thread). */
+    int apply() {
+        synchronized (this) {
+            closed = true;
+        }
+        save();
+        return db.applyCountSession(id);
+    }
+
+    /** Close the session without touching quantities (writer thread). */
+    void discard() {
+        synchronized (this) {
+            closed = true;
+            dirty.clear();
+        }
+        db.discardCountSession(id);
+    }
+}
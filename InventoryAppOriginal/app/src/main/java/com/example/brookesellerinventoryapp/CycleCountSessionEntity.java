@@ -0,0 +1,28 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// Room entity for a cycle count (stock-take). Open while closed_at is null.
+@Entity(tableName = CycleCountSessionEntity.TABLE)
+public class CycleCountSessionEntity {
+
+    static final String TABLE = "cycle_count_sessions";
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    // epoch ms
+    @ColumnInfo(name = "started_at")
+    public long startedAt;
+
+    // epoch ms when applied or discarded
+    @Nullable
+    @ColumnInfo(name = "closed_at")
+    public Long closedAt;
+
+    @Nullable
+    public String username;
+}
@@ -1,7 +1,6 @@
 package com.example.brookesellerinventoryapp;
 
 import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
 import android.os.Bundle;
 import android.widget.ListView;
 import android.widget.SimpleCursorAdapter;
@@ -11,8 +10,9 @@ import androidx.appcompat.app.AppCompatActivity;
 // Shows usernames and passwords from the users table.
 public class DisplayLoginsActivity extends AppCompatActivity {
 
-    private LoginDatabase dbHelper;
-    private Cursor cursor; // holds the query result
+    private SimpleCursorAdapter adapter;
+    // re-queried only when the users table changes
+    private ObservableQuery<Cursor> users;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -24,41 +24,45 @@ public class DisplayLoginsActivity extends AppCompatActivity {
         // Shown when there’s no data
         listView.setEmptyView(findViewById(R.id.empty));
 
-        // Open the DB for reading
-        dbHelper = new LoginDatabase(this);
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-
-        // Columns we need (_id is required by the adapter)
-        String[] cols = new String[] { "_id", "username", "password" };
-
-        // Query all rows, sort by username
-        cursor = db.query(
-                "users",
-                cols,
-                null, null, null, null,
-                "username ASC"
-        );
-
         // Map DB columns → built-in two-line row (text1, text2)
         String[] from = new String[] { "username", "password" };
         int[] to = new int[] { android.R.id.text1, android.R.id.text2 };
 
-        // Hook data to the list
-        SimpleCursorAdapter adapter = new SimpleCursorAdapter(
+        // Hook data to the list; the first query fills it in
+        adapter = new SimpleCursorAdapter(
                 this,
                 android.R.layout.simple_list_item_2,
-                cursor,
+                null,
                 from,
                 to,
                 0
         );
         listView.setAdapter(adapter);
+
+        // All rows sorted by username, read on the database thread
+        LoginDatabase loginDb = new LoginDatabase(this);
+        InventoryRepository repo = InventoryRepository.get(this);
+        users = new ObservableQuery<>(loginDb.room(), repo.io(), repo.main(), new String[] { "users" },
+                loginDb::listUsers, adapter::changeCursor);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        users.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        users.stop();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        users.close();
         // Close the cursor
-        if (cursor != null && !cursor.isClosed()) cursor.close();
+        adapter.changeCursor(null);
     }
 }
@@ -0,0 +1,64 @@
+package com.example.brookesellerinventoryapp;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.RequestBuilder;
+
+import java.util.List;
+
+/**
+ * Loads card images a few rows past the screen in the direction the grid is
+ * scrolling, so they're in Glide's memory cache by the time the cards bind.
+ * Works like Glide's RecyclerViewPreloader, built on the adapter's own request
+ * so a preloaded image is exactly the one the card asks for.
+ *
+ * Looking up a photo also queues its thumbnail, so rows about to show get
+ * their small image made first.
+ */
+final class GridImagePreloader extends RecyclerView.OnScrollListener {
+
+    // cards ahead of the visible ones to load (a few rows of two)
+    private static final int AHEAD = 12;
+
+    private final InventoryCardAdapter adapter;
+    // the window asked for last time, [from, to) in that list; skipped next time
+    private List<Item> loadedList;
+    private int loadedFrom;
+    private int loadedTo;
+    private int lastFirst;
+
+    GridImagePreloader(InventoryCardAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView grid, int dx, int dy) {
+        if (!(grid.getLayoutManager() instanceof GridLayoutManager)) return;
+        GridLayoutManager lm = (GridLayoutManager) grid.getLayoutManager();
+        int first = lm.findFirstVisibleItemPosition();
+        int last = lm.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) return;
+
+        // dy is 0 after a layout pass; go by where the first card moved instead
+        boolean down = dy > 0 || (dy == 0 && first >= lastFirst);
+        lastFirst = first;
+
+        List<Item> rows = adapter.getCurrentList();
+        int from = down ? last + 1 : Math.max(0, first - AHEAD);
+        int to = down ? Math.min(rows.size(), last + 1 + AHEAD) : first;
+        // a new list (page loaded, search) means nothing in it was asked for yet
+        boolean sameList = rows == loadedList;
+        for (int i = from; i < to; i++) {
+            if (sameList && i >= loadedFrom && i < loadedTo) continue;
+            RequestBuilder<Drawable> request = adapter.imageRequest(rows.get(i));
+            if (request != null) request.preload();
+        }
+        loadedList = rows;
+        loadedFrom = from;
+        loadedTo = to;
+    }
+}
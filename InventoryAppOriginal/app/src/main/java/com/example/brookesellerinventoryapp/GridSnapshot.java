@@ -0,0 +1,198 @@
+package com.example.brookesellerinventoryapp;
+
+import android.database.Cursor;
+import android.os.Handler;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Binary copy of the grid (id, name, sku, quantity) in grid order, kept in filesDir.
+ * On launch the first page is read straight from a memory-mapped file, so the grid
+ * can draw before SQLite is even open. The pager then loads the real rows and
+ * DiffUtil reconciles the two.
+ *
+ * Only the first SNAPSHOT_ROWS rows are kept, since that's all a launch shows.
+ * Those rows are also held in memory, and each committed change patches them in
+ * place (no query); only a bulk change, or a delete that leaves fewer rows than
+ * the snapshot holds, reads them again, and then only the first SNAPSHOT_ROWS.
+ * The file is rewritten after changes that touch those rows, coalesced so a burst
+ * of writes costs one rewrite. Reads, patches and rewrites run on one background thread.
+ *
+ * File layout: int MAGIC, int row count, then per row:
+ * long id, int quantity, int name length, name UTF-8, int sku length, sku UTF-8.
+ */
+public final class GridSnapshot implements InventoryChangeFeed.Listener {
+
+    private static final String TAG = "GridSnapshot";
+    private static final String FILE_NAME = "grid.snapshot";
+    private static final int MAGIC = 0x49475331;    // "IGS1"
+    private static final long REWRITE_DELAY_MS = 1000;
+    // the first two pages: enough for the first screen and a fling
+    static final int SNAPSHOT_ROWS = 2 * InventoryPager.PAGE_SIZE;
+
+    private final File file;
+    private final File tmp;
+    private final InventoryDatabase db;
+    private final ScheduledExecutorService worker;
+    private final AtomicBoolean rewriteQueued = new AtomicBoolean(false);
+
+    // Worker thread only: the rows in the file, or null until read from the table
+    private ArrayList<Item> head;
+    private boolean headComplete;   // head holds every row in the table
+
+    GridSnapshot(File dir, InventoryDatabase db) {
+        this.file = new File(dir, FILE_NAME);
+        this.tmp = new File(dir, FILE_NAME + ".tmp");
+        this.db = db;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "grid-snapshot");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Read the first rows off the main thread and hand them to the callback on main.
+     * Gives an empty list if there is no snapshot yet or it can't be read.
+     */
+    public void readFirstAsync(int limit, Handler main, Consumer<List<Item>> onMain) {
+        worker.execute(() -> {
+            List<Item> rows = readFirst(limit);
+            main.post(() -> onMain.accept(rows));
+        });
+    }
+
+    // Decode only the first limit rows; the rest of the file is never touched
+    List<Item> readFirst(int limit) {
+        if (!file.exists()) return Collections.emptyList();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel ch = raf.getChannel()) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != MAGIC) return Collections.emptyList();
+            int n = Math.min(buf.getInt(), limit);
+            List<Item> out = new ArrayList<>(Math.max(0, n));
+            for (int i = 0; i < n; i++) {
+                long id = buf.getLong();
+                int qty = buf.getInt();
+                String name = readString(buf);
+                String sku = readString(buf);
+                out.add(new Item(id, name, null, sku, qty, null, null));
+            }
+            return out;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            // a bad snapshot only costs the warm start; the pager loads the real rows
+            Log.w(TAG, "snapshot unreadable", e);
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public void onItemChange(ItemChange change) {
+        worker.execute(() -> {
+            if (change.type != ItemChange.Type.RELOAD && head != null) {
+                // rows are found by (name, id), which an edit never changes
+                if (!SortedItems.apply(head, change, SortedItems.BY_NAME_THEN_ID, null, headComplete)) {
+                    return;   // past the snapshot's rows; the file doesn't change
+                }
+                if (head.size() > SNAPSHOT_ROWS) {
+                    head.remove(head.size() - 1);
+                    headComplete = false;
+                }
+                // a delete pulled in a row we don't have; read the first rows again
+                if (!headComplete && head.size() < SNAPSHOT_ROWS) head = null;
+            } else {
+                head = null;
+            }
+            scheduleRewrite();
+        });
+    }
+
+    // Write the first snapshot if there isn't one (first launch, or after clearing data)
+    void rewriteIfMissing() {
+        if (!file.exists()) scheduleRewrite();
+    }
+
+    // Queue one rewrite; changes that land before it runs are picked up by it
+    void scheduleRewrite() {
+        if (rewriteQueued.compareAndSet(false, true)) {
+            worker.schedule(this::rewrite, REWRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rewrite() {
+        // clear first so a change during the rewrite queues another one
+        rewriteQueued.set(false);
+        try {
+            if (head == null) head = readHead();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp), 16 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(head.size());
+                for (Item it : head) {
+                    out.writeLong(it.id);
+                    out.writeInt(it.quantity);
+                    writeString(out, it.name);
+                    writeString(out, it.sku);
+                }
+            }
+            // rename is atomic, so a reader never sees half a file
+            if (!tmp.renameTo(file)) Log.w(TAG, "could not replace snapshot");
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "snapshot rewrite failed", e);
+            head = null;
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+        }
+    }
+
+    // The first SNAPSHOT_ROWS rows in grid order
+    private ArrayList<Item> readHead() {
+        try (Cursor c = db.listGridRows(SNAPSHOT_ROWS)) {
+            int iId = c.getColumnIndexOrThrow(InventoryDatabase.ItemsTable.COL_ID);
+            int iName = c.getColumnIndexOrThrow(InventoryDatabase.ItemsTable.COL_NAME);
+            int iSku = c.getColumnIndexOrThrow(InventoryDatabase.ItemsTable.COL_SKU);
+            int iQty = c.getColumnIndexOrThrow(InventoryDatabase.ItemsTable.COL_QTY);
+            ArrayList<Item> rows = new ArrayList<>(c.getCount() + 1);
+            while (c.moveToNext()) {
+                rows.add(new Item(c.getLong(iId), c.getString(iName), null,
+                        c.getString(iSku), c.getInt(iQty), null, null));
+            }
+            headComplete = rows.size() < SNAPSHOT_ROWS;
+            return rows;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0 || len > buf.remaining()) throw new IllegalArgumentException("bad length " + len);
+        byte[] b = new byte[len];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
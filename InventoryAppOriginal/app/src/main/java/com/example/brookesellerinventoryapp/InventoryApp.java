@@ -0,0 +1,16 @@
+package com.example.brookesellerinventoryapp;
+
+import android.app.Application;
+
+// App entry point: sets up the shared inventory repository once per process.
+public class InventoryApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // open the database in the background while the login screen shows
+        InventoryRepository.get(this).warmUp();
+        // and a few grid cards, so the first grid doesn't inflate them all at once
+        InventoryGrid.prewarm(this);
+    }
+}
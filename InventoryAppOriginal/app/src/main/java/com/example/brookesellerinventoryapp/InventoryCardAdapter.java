@@ -1,19 +1,29 @@
 package com.example.brookesellerinventoryapp;
 
-import android.view.LayoutInflater;
+import android.graphics.drawable.Drawable;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+
+import java.util.List;
 
 // Adapter that shows item cards in a RecyclerView.
+// A quantity-only change rebinds just the quantity text: no image request and
+// no allocation, since listeners are set once per card and the text is written
+// into a buffer the card keeps.
+// Cards come from InventoryGrid's shared pool and may have been made for another
+// screen, so a card acts on the adapter that bound it last, not the one that made it.
 public class InventoryCardAdapter extends ListAdapter<Item, InventoryCardAdapter.VH> {
 
     // Click events from a card.
@@ -23,7 +33,25 @@ public class InventoryCardAdapter extends ListAdapter<Item, InventoryCardAdapter
         default void onDecrease(Item item) {}
     }
 
+    // Asks for the next page when the grid gets close to the last loaded card.
+    public interface OnNearEnd {
+        void onNearEnd();
+    }
+
+    // How many cards before the end we start loading the next page
+    private static final int PREFETCH_DISTANCE = 20;
+
+    // Payload for a row whose quantity is the only visible change
+    static final Object PAYLOAD_QTY = new Object();
+
+    // The one view type; InventoryGrid sizes the shared pool for it
+    static final int VIEW_TYPE_CARD = 0;
+
     private final OnItemAction listener;
+    @Nullable private OnNearEnd nearEndListener;
+    private ItemImageStore images;       // set with the first card
+    @Nullable private RequestManager glide;   // the grid's, so loads stop with its screen
+    private int imageSize = ItemImageStore.THUMB_PX;
 
     public InventoryCardAdapter(@NonNull OnItemAction listener) {
         super(DIFF);
@@ -41,21 +69,59 @@ public class InventoryCardAdapter extends ListAdapter<Item, InventoryCardAdapter
         }
 
         @Override public boolean areContentsTheSame(@NonNull Item a, @NonNull Item b) {
-            // Same content if all visible fields match
+            // Loaders hand back the same object for a row that hasn't changed
+            if (a == b) return true;
+            // Both read from the table: every write moves the stamp, so one long decides
+            if (a.updatedSeq >= 0 && b.updatedSeq >= 0) return a.updatedSeq == b.updatedSeq;
+            // Snapshot rows and ones shown ahead of a write have no stamp: compare
+            // what the card shows. Cards don't show upc or description, so a full
+            // row replacing a lean one doesn't rebind.
             return a.id == b.id
                     && safeEq(a.name, b.name)
                     && safeEq(a.sku, b.sku)
-                    && safeEq(a.upc, b.upc)
-                    && safeEq(a.description, b.description)
                     && safeEq(a.imageUrlOrPath, b.imageUrlOrPath)
                     && a.quantity == b.quantity;
         }
 
+        // Only the quantity moved: rebind that one TextView
+        @Nullable @Override public Object getChangePayload(@NonNull Item a, @NonNull Item b) {
+            if (safeEq(a.name, b.name) && safeEq(a.imageUrlOrPath, b.imageUrlOrPath)) return PAYLOAD_QTY;
+            return null;
+        }
+
         private boolean safeEq(String x, String y) {
             return (x == null) ? (y == null) : x.equals(y);
         }
     };
 
+    // Set (or clear) the page loader that gets told when scrolling nears the end
+    public void setOnNearEnd(@Nullable OnNearEnd l) {
+        this.nearEndListener = l;
+    }
+
+    // Pixel size images are decoded at (square); InventoryGrid sets it from the card width
+    void setImageSize(int px) {
+        this.imageSize = px;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView grid) {
+        glide = Glide.with(grid);
+        if (images == null) images = InventoryRepository.get(grid.getContext()).images();
+    }
+
+    // What a card loads for an item, or null for the placeholder. Binds and
+    // GridImagePreloader both build the request here, so a preloaded image is
+    // the exact one the card asks for (same model, size and crop).
+    @Nullable
+    RequestBuilder<Drawable> imageRequest(Item it) {
+        if (glide == null || it.imageUrlOrPath == null || it.imageUrlOrPath.isEmpty()) return null;
+        // before its thumbnail exists the photo itself loads, decoded at card size
+        return glide.load(images.forGrid(it.imageUrlOrPath))
+                .override(imageSize)
+                .centerCrop();
+    }
+
     @Override public long getItemId(int position) {
         Item it = getItem(position);
         if (it == null) return RecyclerView.NO_ID;
@@ -65,42 +131,66 @@ public class InventoryCardAdapter extends ListAdapter<Item, InventoryCardAdapter
 
     @NonNull @Override
     public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Inflate one card view
-        View v = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_inventory_card, parent, false);
-        return new VH(v);
+        // A card inflated ahead of time if one is ready
+        return new VH(InventoryGrid.obtainCard(parent));
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE_CARD;
+    }
+
+    // Back in the pool: drop this screen's row and listener so the card doesn't keep them
+    @Override
+    public void onViewRecycled(@NonNull VH h) {
+        h.item = null;
+        h.action = null;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH h, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(h, position);
+            return;
+        }
+        // every payload is PAYLOAD_QTY (the only one DIFF hands out)
+        h.item = getItem(position);
+        h.action = listener;
+        h.showQty(h.item.quantity);
     }
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int position) {
         Item it = getItem(position);
+        h.item = it;
+        h.action = listener;
+
+        // Binding close to the end means the grid scrolled there: load more
+        // (the loader only queues a query, so this is safe during layout)
+        if (nearEndListener != null && position >= getItemCount() - PREFETCH_DISTANCE) {
+            nearEndListener.onNearEnd();
+        }
 
         // Name and quantity text
         h.txtName.setText(it.name != null ? it.name : "");
-        h.txtQty.setText("Qty: " + it.quantity);
-
-        // Load image (or a placeholder)
-        if (it.imageUrlOrPath == null || it.imageUrlOrPath.isEmpty()) {
+        h.showQty(it.quantity);
+
+        // Load the thumbnail (or a placeholder); a recycled card showing the same image
+        // keeps it, unless another screen's grid loaded it (that load stops with its screen)
+        String image = (it.imageUrlOrPath == null || it.imageUrlOrPath.isEmpty()) ? null : it.imageUrlOrPath;
+        if (h.glide == glide && (image == null ? h.image == null : image.equals(h.image))) return;
+        if (h.glide != null && h.glide != glide) h.glide.clear(h.imgItem);
+        h.glide = glide;
+        h.image = image;
+        RequestBuilder<Drawable> request = imageRequest(it);
+        if (request == null) {
+            if (glide != null) glide.clear(h.imgItem);
             h.imgItem.setImageResource(android.R.drawable.ic_menu_report_image);
         } else {
-            Glide.with(h.imgItem.getContext())
-                    .load(it.imageUrlOrPath)
-                    .placeholder(android.R.drawable.ic_menu_report_image)
+            request.placeholder(android.R.drawable.ic_menu_report_image)
                     .error(android.R.drawable.ic_menu_report_image)
-                    .centerCrop()
                     .into(h.imgItem);
         }
-
-        // Click opens details
-        h.cardRoot.setOnClickListener(v -> {
-            if (listener != null) listener.onClick(it);
-        });
-
-        // Long press sends a decrease event
-        h.cardRoot.setOnLongClickListener(v -> {
-            if (listener != null) listener.onDecrease(it);
-            return true;
-        });
     }
 
     /* ---------- ViewHolder ---------- */
@@ -110,6 +200,13 @@ public class InventoryCardAdapter extends ListAdapter<Item, InventoryCardAdapter
         final TextView txtName;       // product name
         final TextView txtQty;        // product quantity
 
+        @Nullable Item item;          // row shown now (read by the listeners)
+        @Nullable OnItemAction action; // the binding adapter's listener
+        @Nullable String image;       // image requested for this card
+        @Nullable RequestManager glide; // who requested it; null until the first bind
+        // "Qty: " plus up to 11 characters of int, reused on every bind
+        private final char[] qtyText = { 'Q', 't', 'y', ':', ' ', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
+
         public VH(@NonNull View itemView) {
             super(itemView);
             View root = itemView.findViewById(R.id.cardRoot);
@@ -117,6 +214,34 @@ public class InventoryCardAdapter extends ListAdapter<Item, InventoryCardAdapter
             imgItem  = itemView.findViewById(R.id.imgItem);
             txtName  = itemView.findViewById(R.id.txtName);
             txtQty   = itemView.findViewById(R.id.txtQty);
+
+            // Listeners are set once here and act on whatever row the card shows now
+            // Click opens details
+            cardRoot.setOnClickListener(view -> {
+                if (action != null && item != null) action.onClick(item);
+            });
+
+            // Long press sends a decrease event
+            cardRoot.setOnLongClickListener(view -> {
+                if (action != null && item != null) action.onDecrease(item);
+                return true;
+            });
+        }
+
+        // "Qty: n" without building a String
+        void showQty(int q) {
+            int end = qtyText.length;
+            int at = end;
+            long v = Math.abs((long) q);
+            do {
+                qtyText[--at] = (char) ('0' + v % 10);
+                v /= 10;
+            } while (v > 0);
+            if (q < 0) qtyText[--at] = '-';
+            // move the digits up against the prefix
+            int len = end - at;
+            System.arraycopy(qtyText, at, qtyText, 5, len);
+            txtQty.setText(qtyText, 0, 5 + len);
         }
     }
 }
@@ -0,0 +1,54 @@
+package com.example.brookesellerinventoryapp;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide feed of row changes to the items table.
+ * InventoryDatabase publishes after each write commits, on the thread that
+ * did the write. Screens listen and patch the rows they already show instead
+ * of querying the whole table again. A write that moves items across their
+ * reorder point also publishes one LowStockEvent.
+ */
+public final class InventoryChangeFeed {
+
+    public interface Listener {
+        // Called on the writing thread; post to the main thread before touching views
+        void onItemChange(ItemChange change);
+    }
+
+    public interface LowStockListener {
+        // Called on the writing thread, once per write that crossed a reorder point
+        void onLowStock(LowStockEvent event);
+    }
+
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static final CopyOnWriteArrayList<LowStockListener> lowStockListeners =
+            new CopyOnWriteArrayList<>();
+
+    private InventoryChangeFeed() {}
+
+    public static void addListener(Listener l) {
+        listeners.addIfAbsent(l);
+    }
+
+    public static void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    static void publish(ItemChange change) {
+        for (Listener l : listeners) l.onItemChange(change);
+    }
+
+    public static void addLowStockListener(LowStockListener l) {
+        lowStockListeners.addIfAbsent(l);
+    }
+
+    public static void removeLowStockListener(LowStockListener l) {
+        lowStockListeners.remove(l);
+    }
+
+    // After the item changes of the same write have gone out
+    static void publishLowStock(LowStockEvent event) {
+        for (LowStockListener l : lowStockListeners) l.onLowStock(event);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Streams a supplier CSV into the items table.
+ * Rows are read one at a time, checked, deduped by SKU/UPC inside the file,
+ * and inserted with one precompiled statement in chunked transactions.
+ *
+ * Expected header (any order, case does not matter):
+ * name, sku, upc, short_description (or description), quantity, and optionally reorder_point
+ */
+public class InventoryCsvImporter {
+
+    // Rows per transaction. Big enough to amortize the commit, small enough
+    // that a failure only loses one chunk and progress updates stay smooth.
+    public static final int DEFAULT_CHUNK_SIZE = 2000;
+
+    // Keep at most this many rejected rows with details; the rest are only counted
+    private static final int MAX_REJECTION_DETAILS = 1000;
+
+    // Progress callback, called on the import thread after each chunk commits
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long inserted, long rejected);
+    }
+
+    // One row that was not imported
+    public static final class Rejection {
+        public final long line;       // line number in the file
+        public final String reason;
+
+        Rejection(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+    }
+
+    // Summary of a finished import
+    public static final class Result {
+        public final long rowsRead;
+        public final long inserted;
+        public final long rejected;
+        public final long elapsedMs;
+        public final List<Rejection> rejections; // first MAX_REJECTION_DETAILS only
+
+        Result(long rowsRead, long inserted, long rejected, long elapsedMs,
+               List<Rejection> rejections) {
+            this.rowsRead = rowsRead;
+            this.inserted = inserted;
+            this.rejected = rejected;
+            this.elapsedMs = elapsedMs;
+            this.rejections = Collections.unmodifiableList(rejections);
+        }
+
+        // Rows per second, for logs and benchmarks
+        public double rowsPerSecond() {
+            return elapsedMs <= 0 ? rowsRead : rowsRead * 1000.0 / elapsedMs;
+        }
+    }
+
+    private final InventoryDatabase db;
+    private final int chunkSize;
+
+    public InventoryCsvImporter(InventoryDatabase db) {
+        this(db, DEFAULT_CHUNK_SIZE);
+    }
+
+    public InventoryCsvImporter(InventoryDatabase db, int chunkSize) {
+        this.db = db;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Import every row from the reader. The reader is closed when done.
+     * @throws IOException if the file can't be read or has no usable header
+     */
+    public Result importCsv(Reader source, @Nullable ProgressListener progress) throws IOException {
+        long start = System.nanoTime();
+        long rowsRead = 0, inserted = 0, rejected = 0;
+        List<Rejection> rejections = new ArrayList<>();
+
+        // SKUs/UPCs already seen in this file
+        Set<String> seenSku = new HashSet<>();
+        Set<String> seenUpc = new HashSet<>();
+
+        try (CsvReader csv = new CsvReader(source)) {
+            Columns cols = Columns.from(csv.readRecord());
+
+            SupportSQLiteDatabase w = db.getWritableDatabase();
+            // OR IGNORE: a row that clashes with an existing sku/upc is skipped
+            // and executeInsert() returns -1, so no lookup per row is needed
+            SupportSQLiteStatement insert = w.compileStatement(
+                    "INSERT OR IGNORE INTO " + InventoryDatabase.ItemsTable.TABLE + " (" +
+                            InventoryDatabase.ItemsTable.COL_NAME + ", " +
+                            InventoryDatabase.ItemsTable.COL_UPC + ", " +
+                            InventoryDatabase.ItemsTable.COL_SKU + ", " +
+                            InventoryDatabase.ItemsTable.COL_SHORT_DESC + ", " +
+                            InventoryDatabase.ItemsTable.COL_QTY + ", " +
+                            InventoryDatabase.ItemsTable.COL_PREV_QTY + ", " +
+                            InventoryDatabase.ItemsTable.COL_REORDER + ", " +
+                            InventoryDatabase.ItemsTable.COL_UPDATED_SEQ +
+                            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            // opening quantity of each new item goes to the ledger in the same chunk
+            SupportSQLiteStatement logOpening = w.compileStatement(
+                    "INSERT INTO " + StockMovementEntity.TABLE +
+                            " (item_id, sku, delta, reason, username, created_at)" +
+                            " VALUES (?, ?, ?, '" + StockLedger.REASON_IMPORT + "', ?, ?)");
+            String user = db.currentUser();
+            long now = System.currentTimeMillis();
+            // one write stamp for the whole file
+            long stamp = db.nextSeq();
+            try {
+                List<String> rec;
+                int inChunk = 0;
+                w.beginTransaction();
+                try {
+                    while ((rec = csv.readRecord()) != null) {
+                        rowsRead++;
+                        long line = csv.getLineNumber();
+
+                        String name = cols.get(rec, cols.name);
+                        String sku  = cols.get(rec, cols.sku);
+                        String upc  = cols.get(rec, cols.upc);
+                        String desc = cols.get(rec, cols.desc);
+                        String qtyS = cols.get(rec, cols.qty);
+                        String ropS = cols.get(rec, cols.reorder);
+
+                        // check the row before touching the database
+                        String reason = null;
+                        int qty = 0;
+                        int reorder = 0;
+                        if (name.isEmpty() || sku.isEmpty() || upc.isEmpty()) {
+                            reason = "Missing name, SKU or UPC";
+                        } else {
+                            try {
+                                qty = qtyS.isEmpty() ? 0 : Integer.parseInt(qtyS);
+                                if (qty < 0) reason = "Quantity must be ≥ 0";
+                            } catch (NumberFormatException e) {
+                                reason = "Invalid quantity: " + qtyS;
+                            }
+                            if (reason == null) {
+                                try {
+                                    reorder = ropS.isEmpty() ? 0 : Integer.parseInt(ropS);
+                                    if (reorder < 0) reason = "Reorder point must be ≥ 0";
+                                } catch (NumberFormatException e) {
+                                    reason = "Invalid reorder point: " + ropS;
+                                }
+                            }
+                        }
+                        // a row claims its SKU and UPC only once it is inserted, so a rejected
+                        // row (bad field, or a clash with the table) doesn't block a later good
+                        // row that shares one of them
+                        if (reason == null && seenSku.contains(sku)) reason = "Duplicate SKU in file: " + sku;
+                        if (reason == null && seenUpc.contains(upc)) reason = "Duplicate UPC in file: " + upc;
+
+                        if (reason == null) {
+                            insert.bindString(1, name);
+                            insert.bindString(2, upc);
+                            insert.bindString(3, sku);
+                            if (desc.isEmpty()) insert.bindNull(4); else insert.bindString(4, desc);
+                            insert.bindLong(5, qty);
+                            insert.bindLong(6, qty);
+                            insert.bindLong(7, reorder);
+                            insert.bindLong(8, stamp);
+                            long rowId = insert.executeInsert();
+                            if (rowId > 0) {
+                                inserted++;
+                                seenSku.add(sku);
+                                seenUpc.add(upc);
+                                if (qty > 0) {
+                                    logOpening.bindLong(1, rowId);
+                                    logOpening.bindString(2, sku);
+                                    logOpening.bindLong(3, qty);
+                                    if (user == null) logOpening.bindNull(4); else logOpening.bindString(4, user);
+                                    logOpening.bindLong(5, now);
+                                    logOpening.executeInsert();
+                                }
+                            } else {
+                                reason = "SKU or UPC already exists";
+                            }
+                            insert.clearBindings();
+                        }
+
+                        if (reason != null) {
+                            rejected++;
+                            if (rejections.size() < MAX_REJECTION_DETAILS) {
+                                rejections.add(new Rejection(line, reason));
+                            }
+                        }
+
+                        // commit this chunk and start the next one
+                        if (++inChunk >= chunkSize) {
+                            w.setTransactionSuccessful();
+                            w.endTransaction();
+                            inChunk = 0;
+                            if (progress != null) progress.onProgress(rowsRead, inserted, rejected);
+                            w.beginTransaction();
+                        }
+                    }
+                    w.setTransactionSuccessful();
+                } finally {
+                    w.endTransaction();
+                }
+            } finally {
+                insert.close();
+                logOpening.close();
+            }
+        } finally {
+            // too many rows to publish one by one; screens reload and the index rebuilds.
+            // Also on failure: chunks committed before it are in the table.
+            if (inserted > 0) db.publish(ItemChange.RELOAD);
+        }
+
+        if (progress != null) progress.onProgress(rowsRead, inserted, rejected);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        return new Result(rowsRead, inserted, rejected, elapsedMs, rejections);
+    }
+
+    // Maps header names to column positions
+    private static final class Columns {
+        int name = -1, sku = -1, upc = -1, desc = -1, qty = -1, reorder = -1;
+
+        static Columns from(@Nullable List<String> header) throws IOException {
+            if (header == null) throw new IOException("CSV file is empty");
+            Columns c = new Columns();
+            for (int i = 0; i < header.size(); i++) {
+                String h = header.get(i).trim().toLowerCase(Locale.US);
+                switch (h) {
+                    case "name":              c.name = i; break;
+                    case "sku":               c.sku  = i; break;
+                    case "upc":               c.upc  = i; break;
+                    case "short_description":
+                    case "description":       c.desc = i; break;
+                    case "quantity":
+                    case "qty":               c.qty  = i; break;
+                    case "reorder_point":
+                    case "reorder":           c.reorder = i; break;
+                    default: break;           // ignore columns we don't use
+                }
+            }
+            if (c.name < 0 || c.sku < 0 || c.upc < 0) {
+                throw new IOException("CSV header needs name, sku and upc columns");
+            }
+            return c;
+        }
+
+        // Trimmed field at index, or "" if missing
+        String get(List<String> rec, int index) {
+            if (index < 0 || index >= rec.size()) return "";
+            String s = rec.get(index);
+            return s == null ? "" : s.trim();
+        }
+    }
+}
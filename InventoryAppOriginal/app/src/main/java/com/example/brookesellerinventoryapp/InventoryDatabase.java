@@ -4,56 +4,484 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
+import android.os.CancellationSignal;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
-// Simple SQLite helper for the inventory.
-public class InventoryDatabase extends SQLiteOpenHelper {
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The inventory database. Room owns the file and the plain queries (ItemDao);
+ * this class adds what Room can't express - full-text search, UPDATE ... RETURNING,
+ * keyset paging, the stats triggers - and keeps the index and change feed in step.
+ */
+public class InventoryDatabase {
     // Name of the .db file and its version
     private static final String DATABASE_NAME = "inventory.db";
-    private static final int VERSION = 1; // change this if you change the table
+    static final int VERSION = 11; // change this if you change the table
+
+    private final InventoryRoomDatabase room;
+    private final ItemDao dao;
+    // who is signed in, for the ledger; null until the app sets it
+    private volatile Supplier<String> userSource = () -> null;
 
     public InventoryDatabase(Context context) {
         // Builds/opens the database file
-        super(context, DATABASE_NAME, null, VERSION);
-    }
-
-    // Table + column names
-    private static final class ItemsTable {
-        private static final String TABLE = "items";
-        private static final String COL_ID = "_id";
-        private static final String COL_NAME = "name";
-        private static final String COL_UPC = "upc";
-        private static final String COL_SKU = "sku";
-        private static final String COL_SHORT_DESC = "short_description";
-        private static final String COL_QTY = "quantity";
-    }
-
-    @Override
-    public void onCreate(SQLiteDatabase db) {
-        // Make the items table
-        String sql = "CREATE TABLE " + ItemsTable.TABLE + " (" +
-                ItemsTable.COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " + // auto id
-                ItemsTable.COL_NAME + " TEXT NOT NULL, " +                   // product name
-                ItemsTable.COL_UPC + " TEXT NOT NULL UNIQUE, " +             // unique upc
-                ItemsTable.COL_SKU + " TEXT NOT NULL UNIQUE, " +             // unique sku
-                ItemsTable.COL_SHORT_DESC + " TEXT, " +                      // short description
-                ItemsTable.COL_QTY + " INTEGER NOT NULL DEFAULT 0 CHECK(" + // >= 0 only
-                ItemsTable.COL_QTY + " >= 0)" +
-                ")";
-        db.execSQL(sql);
-
-        // Speed up name searches
-        db.execSQL("CREATE INDEX idx_items_name ON " + ItemsTable.TABLE +
-                "(" + ItemsTable.COL_NAME + ")");
-    }
-
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Drop and recreate table if the version changes
-        db.execSQL("DROP TABLE IF EXISTS " + ItemsTable.TABLE);
-        onCreate(db);
+        this(context, DATABASE_NAME);
+    }
+
+    // Open a database with a different file name (tests and benchmarks)
+    InventoryDatabase(Context context, @Nullable String name) {
+        this(context, name, true);
+    }
+
+    // wal = false keeps the old rollback journal, where a reader and the writer
+    // block each other (only the mixed-workload benchmark wants that)
+    InventoryDatabase(Context context, @Nullable String name, boolean wal) {
+        RoomDatabase.Builder<InventoryRoomDatabase> b = name == null
+                ? Room.inMemoryDatabaseBuilder(context, InventoryRoomDatabase.class)
+                : Room.databaseBuilder(context, InventoryRoomDatabase.class, name);
+        room = b
+                // write-ahead log: reads run on their own pooled connections next to
+                // the one writer instead of waiting for it (Room's AUTOMATIC picks
+                // the old journal on low-RAM devices, so ask for it outright)
+                .setJournalMode(wal ? RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING
+                        : RoomDatabase.JournalMode.TRUNCATE)
+                .addMigrations(withoutExtraIndexes(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4,
+                        MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9,
+                        MIGRATION_9_10, MIGRATION_10_11))
+                // every older version upgrades in place; only going back to an
+                // older app starts over
+                .fallbackToDestructiveMigrationOnDowngrade()
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                        createExtras(db);
+                    }
+
+                    @Override
+                    public void onDestructiveMigration(@NonNull SupportSQLiteDatabase db) {
+                        // Room drops its own tables; the FTS table isn't one of them
+                        db.execSQL("DROP TABLE IF EXISTS " + ItemsFts.TABLE);
+                        index.invalidate();
+                    }
+                })
+                .build();
+        dao = room.items();
+    }
+
+    // SKU/UPC/id to row id in memory; built on first use, updated on every write
+    private final InventoryIndex index = new InventoryIndex(new InventoryIndex.Source() {
+        @Override
+        public void loadKeys(InventoryIndex.KeySink sink) {
+            try (Cursor c = dao.loadKeys()) {
+                while (c.moveToNext()) sink.row(c.getLong(0), c.getString(1), c.getString(2), c.getLong(3));
+            }
+        }
+
+        @Nullable @Override
+        public Item readById(long id) {
+            return first(dao.getById(id));
+        }
+
+        @Nullable @Override
+        public Item readBySku(String sku) {
+            return first(dao.getBySku(sku));
+        }
+
+        @Nullable @Override
+        public Item readByUpc(String upc) {
+            return first(dao.getByUpc(upc));
+        }
+    });
+
+    // Full rows read by id lately (findItemById); kept current like the index
+    private static final int RECENT_ROWS = 64;
+    private final ItemCache recent = new ItemCache(RECENT_ROWS);
+
+    // Last updated_seq handed out; -1 until read from the table
+    private final AtomicLong seq = new AtomicLong(-1);
+
+    // Table + column names (package-private so bulk helpers can build SQL)
+    static final class ItemsTable {
+        static final String TABLE = "items";
+        static final String COL_ID = "_id";
+        static final String COL_NAME = "name";
+        static final String COL_UPC = "upc";
+        static final String COL_SKU = "sku";
+        static final String COL_SHORT_DESC = "short_description";
+        static final String COL_QTY = "quantity";
+        static final String COL_VERSION = "version"; // bumps on every write to the row
+        static final String COL_REORDER = "reorder_point"; // low stock below this, 0 = off
+        static final String COL_PREV_QTY = "prev_quantity"; // quantity before the last update
+        static final String COL_UPDATED_SEQ = "updated_seq"; // nextSeq() of the last write
+        static final String COL_IMAGE_KEY = "image_key"; // ItemImageStore key, null = no photo
+    }
+
+    // Columns every item query returns (what readItems expects)
+    private static final String[] ITEM_COLUMNS = {
+            ItemsTable.COL_ID, ItemsTable.COL_NAME, ItemsTable.COL_UPC,
+            ItemsTable.COL_SKU, ItemsTable.COL_SHORT_DESC, ItemsTable.COL_QTY,
+            ItemsTable.COL_VERSION, ItemsTable.COL_REORDER, ItemsTable.COL_UPDATED_SEQ,
+            ItemsTable.COL_IMAGE_KEY
+    };
+
+    // Full-text index over the searchable item columns.
+    // FTS4 with external content: it stores only the index, the text stays in items.
+    private static final class ItemsFts {
+        private static final String TABLE = "items_fts";
+        private static final String COLS = ItemsTable.COL_NAME + ", " + ItemsTable.COL_SKU + ", "
+                + ItemsTable.COL_UPC + ", " + ItemsTable.COL_SHORT_DESC;
+    }
+
+    // One-row rollup kept up to date by triggers on items, so totals never need a scan
+    static final class StatsTable {
+        static final String TABLE = "inventory_stats";
+        static final String COL_ID = "id";              // always 1
+        static final String COL_SKUS = "sku_count";
+        static final String COL_UNITS = "unit_count";
+        static final String COL_ZERO = "zero_count";     // rows with quantity = 0
+    }
+
+    // Totals for headers: how many SKUs, how many units, how many out of stock
+    public static final class Stats {
+        public final long skuCount;
+        public final long unitCount;
+        public final long zeroCount;
+
+        Stats(long skuCount, long unitCount, long zeroCount) {
+            this.skuCount = skuCount;
+            this.unitCount = unitCount;
+            this.zeroCount = zeroCount;
+        }
+    }
+
+    // Most rows a search returns
+    public static final int SEARCH_LIMIT = 200;
+
+    // Version 2 adds full-text search. The index is filled from the rows already
+    // there; its triggers come with the extras on open.
+    private static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + ItemsFts.TABLE + " USING fts4(" +
+                    "content=\"" + ItemsTable.TABLE + "\", " +
+                    ItemsFts.COLS + ", prefix=\"1,2,3\")");
+            db.execSQL("INSERT INTO " + ItemsFts.TABLE + " (" + ItemsFts.TABLE + ") VALUES ('rebuild')");
+        }
+    };
+
+    // Version 3 adds row versions for compare-and-set. A plain column add, so keep the rows.
+    private static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + ItemsTable.TABLE + " ADD COLUMN " +
+                    ItemsTable.COL_VERSION + " INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Version 4 adds the stats rollup, counted from the rows already there.
+    // Its triggers and the zero-stock index come with the extras on open.
+    private static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + StatsTable.TABLE + " (" +
+                    StatsTable.COL_ID + " INTEGER PRIMARY KEY CHECK(" + StatsTable.COL_ID + " = 1), " +
+                    StatsTable.COL_SKUS + " INTEGER NOT NULL, " +
+                    StatsTable.COL_UNITS + " INTEGER NOT NULL, " +
+                    StatsTable.COL_ZERO + " INTEGER NOT NULL)");
+            backfillStats(db);
+        }
+    };
+
+    // Versions up to 4 came from the hand-written helper. Same columns, but Room wants _id
+    // declared NOT NULL, named unique indexes instead of UNIQUE columns, and a
+    // stats row without the CHECK, so copy the rows into tables Room recognizes.
+    // Ids are kept, so the full-text index still matches; it is rebuilt anyway.
+    // CHECK(quantity >= 0) becomes the quantity guard triggers, added on open, since
+    // Room can't declare a CHECK and a file it makes itself needs the same rule.
+    private static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE items_new (" +
+                    ItemsTable.COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    ItemsTable.COL_NAME + " TEXT NOT NULL, " +
+                    ItemsTable.COL_UPC + " TEXT NOT NULL, " +
+                    ItemsTable.COL_SKU + " TEXT NOT NULL, " +
+                    ItemsTable.COL_SHORT_DESC + " TEXT, " +
+                    ItemsTable.COL_QTY + " INTEGER NOT NULL DEFAULT 0, " +
+                    ItemsTable.COL_VERSION + " INTEGER NOT NULL DEFAULT 0)");
+            String cols = ItemsTable.COL_ID + ", " + ItemsTable.COL_NAME + ", " + ItemsTable.COL_UPC + ", " +
+                    ItemsTable.COL_SKU + ", " + ItemsTable.COL_SHORT_DESC + ", " +
+                    ItemsTable.COL_QTY + ", " + ItemsTable.COL_VERSION;
+            db.execSQL("INSERT INTO items_new (" + cols + ") SELECT " + cols + " FROM " + ItemsTable.TABLE);
+            // its triggers and indexes go with it (without firing)
+            db.execSQL("DROP TABLE " + ItemsTable.TABLE);
+            db.execSQL("ALTER TABLE items_new RENAME TO " + ItemsTable.TABLE);
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_items_name ON " + ItemsTable.TABLE +
+                    " (" + ItemsTable.COL_NAME + ")");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS index_items_sku ON " + ItemsTable.TABLE +
+                    " (" + ItemsTable.COL_SKU + ")");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS index_items_upc ON " + ItemsTable.TABLE +
+                    " (" + ItemsTable.COL_UPC + ")");
+
+            // totals are counted again from the rows rather than trusted from the old table
+            db.execSQL("DROP TABLE IF EXISTS " + StatsTable.TABLE);
+            db.execSQL("CREATE TABLE " + StatsTable.TABLE + " (" +
+                    StatsTable.COL_ID + " INTEGER NOT NULL, " +
+                    StatsTable.COL_SKUS + " INTEGER NOT NULL, " +
+                    StatsTable.COL_UNITS + " INTEGER NOT NULL, " +
+                    StatsTable.COL_ZERO + " INTEGER NOT NULL, " +
+                    "PRIMARY KEY(" + StatsTable.COL_ID + "))");
+            backfillStats(db);
+
+            // the triggers come back with the extras when the file opens
+            db.execSQL("INSERT INTO " + ItemsFts.TABLE + " (" + ItemsFts.TABLE + ") VALUES ('rebuild')");
+        }
+    };
+
+    // The partial indexes createExtras adds. Room can't declare a WHERE clause, so
+    // they aren't on ItemEntity.
+    private static final String[] EXTRA_INDEXES = { "idx_items_zero", "idx_items_low" };
+
+    // After a migration Room checks every index made with CREATE INDEX against
+    // ItemEntity, and fails on ones it doesn't know. So each step drops the partial
+    // indexes first; createExtras makes them again when the file opens.
+    private static Migration[] withoutExtraIndexes(Migration... steps) {
+        Migration[] out = new Migration[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            Migration step = steps[i];
+            out[i] = new Migration(step.startVersion, step.endVersion) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase db) {
+                    for (String name : EXTRA_INDEXES) db.execSQL("DROP INDEX IF EXISTS " + name);
+                    step.migrate(db);
+                }
+            };
+        }
+        return out;
+    }
+
+    // Count the stats row from the items table (migrations only; triggers keep it after that)
+    private static void backfillStats(SupportSQLiteDatabase db) {
+        String qty = ItemsTable.COL_QTY;
+        db.execSQL("INSERT OR REPLACE INTO " + StatsTable.TABLE + " SELECT 1, COUNT(*), " +
+                "COALESCE(SUM(" + qty + "), 0), COALESCE(SUM(" + qty + " = 0), 0) FROM " + ItemsTable.TABLE);
+    }
+
+    // Version 6 adds reorder points. Plain column adds, so keep the rows.
+    private static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + ItemsTable.TABLE + " ADD COLUMN " +
+                    ItemsTable.COL_REORDER + " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE " + ItemsTable.TABLE + " ADD COLUMN " +
+                    ItemsTable.COL_PREV_QTY + " INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Version 7 adds the SMS alert outbox
+    private static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + SmsOutboxEntity.TABLE + " (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "destination TEXT NOT NULL, " +
+                    "body TEXT NOT NULL, " +
+                    "attempts INTEGER NOT NULL DEFAULT 0, " +
+                    "next_attempt_at INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_sms_outbox_due ON " +
+                    SmsOutboxEntity.TABLE + " (next_attempt_at)");
+        }
+    };
+
+    // Version 8 adds the stock_movements ledger. Each item's current quantity
+    // becomes its opening row, so the ledger adds up from the start.
+    private static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + StockMovementEntity.TABLE + " (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "item_id INTEGER NOT NULL, " +
+                    "sku TEXT NOT NULL, " +
+                    "delta INTEGER NOT NULL, " +
+                    "reason TEXT NOT NULL, " +
+                    "username TEXT, " +
+                    "created_at INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO " + StockMovementEntity.TABLE +
+                    " (item_id, sku, delta, reason, username, created_at)" +
+                    " SELECT " + ItemsTable.COL_ID + ", " + ItemsTable.COL_SKU + ", " + ItemsTable.COL_QTY +
+                    ", '" + StockLedger.REASON_CREATED + "', NULL, ?" +
+                    " FROM " + ItemsTable.TABLE + " WHERE " + ItemsTable.COL_QTY + " != 0",
+                    new Object[] { System.currentTimeMillis() });
+        }
+    };
+
+    // Version 11 adds item photos (the file lives in ItemImageStore, the row keeps its key)
+    private static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + ItemsTable.TABLE + " ADD COLUMN " +
+                    ItemsTable.COL_IMAGE_KEY + " TEXT");
+        }
+    };
+
+    // Version 10 stamps each row with the sequence number of its last write.
+    // Existing rows start at 0; the next write anywhere gets 1.
+    private static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + ItemsTable.TABLE + " ADD COLUMN " +
+                    ItemsTable.COL_UPDATED_SEQ + " INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Version 9 adds cycle count sessions and their counted lines
+    private static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + CycleCountSessionEntity.TABLE + " (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "started_at INTEGER NOT NULL, " +
+                    "closed_at INTEGER, " +
+                    "username TEXT)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + CycleCountLineEntity.TABLE + " (" +
+                    "session_id INTEGER NOT NULL, " +
+                    "sku TEXT NOT NULL, " +
+                    "counted INTEGER NOT NULL, " +
+                    "counted_at INTEGER NOT NULL, " +
+                    "PRIMARY KEY(session_id, sku))");
+        }
+    };
+
+    // The Room database, for observing tables
+    RoomDatabase room() {
+        return room;
+    }
+
+    // Where the ledger gets the signed-in user (read on every write, so keep it cheap)
+    void setUserSource(Supplier<String> source) {
+        userSource = source;
+    }
+
+    @Nullable
+    String currentUser() {
+        return userSource.get();
+    }
+
+    // Where queued SMS alerts are kept
+    SmsOutbox.Store smsOutboxStore() {
+        return room.smsOutbox();
+    }
+
+    // The open connection (Room's); raw SQL and compiled statements go through it
+    public SupportSQLiteDatabase getWritableDatabase() {
+        return room.getOpenHelper().getWritableDatabase();
+    }
+
+    public SupportSQLiteDatabase getReadableDatabase() {
+        return room.getOpenHelper().getReadableDatabase();
+    }
+
+    public void close() {
+        room.close();
+    }
+
+    // Room makes items and inventory_stats; add what it can't declare (partial
+    // indexes, the quantity CHECK, full-text search, the stats triggers).
+    // Runs on every open, so everything here is IF NOT EXISTS.
+    private static void createExtras(SupportSQLiteDatabase db) {
+        // Zero-stock screen: only out-of-stock rows, already in its sort order
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_items_zero ON " + ItemsTable.TABLE +
+                "(" + ItemsTable.COL_NAME + " COLLATE NOCASE, " + ItemsTable.COL_ID + ")" +
+                " WHERE " + ItemsTable.COL_QTY + " = 0");
+        // Low-stock screen: same idea; rows with no reorder point (0) never qualify
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_items_low ON " + ItemsTable.TABLE +
+                "(" + ItemsTable.COL_NAME + " COLLATE NOCASE, " + ItemsTable.COL_ID + ")" +
+                " WHERE " + ItemsTable.COL_QTY + " < " + ItemsTable.COL_REORDER);
+
+        createQuantityGuard(db);
+        createSearchIndex(db);
+        createStats(db);
+    }
+
+    // Stock is never negative: what CHECK(quantity >= 0) did before Room, for new and
+    // upgraded files alike. The writers clamp with MAX(0, ...) themselves; this only
+    // stops a write that forgot to.
+    private static void createQuantityGuard(SupportSQLiteDatabase db) {
+        String qty = ItemsTable.COL_QTY;
+        String abort = " WHEN new." + qty + " < 0 BEGIN SELECT RAISE(ABORT, 'quantity must be >= 0'); END";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_qty_bi BEFORE INSERT ON " + ItemsTable.TABLE + abort);
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_qty_bu BEFORE UPDATE OF " + qty +
+                " ON " + ItemsTable.TABLE + abort);
+    }
+
+    // Seed the stats row and add the triggers that keep it in step with items
+    private static void createStats(SupportSQLiteDatabase db) {
+        // a new file has no items yet, so zeros are right
+        db.execSQL("INSERT OR IGNORE INTO " + StatsTable.TABLE + " VALUES (1, 0, 0, 0)");
+
+        String qty = ItemsTable.COL_QTY;
+        String update = "UPDATE " + StatsTable.TABLE + " SET ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_stats_ai AFTER INSERT ON " + ItemsTable.TABLE + " BEGIN " +
+                update + StatsTable.COL_SKUS + " = " + StatsTable.COL_SKUS + " + 1, " +
+                StatsTable.COL_UNITS + " = " + StatsTable.COL_UNITS + " + new." + qty + ", " +
+                StatsTable.COL_ZERO + " = " + StatsTable.COL_ZERO + " + (new." + qty + " = 0); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_stats_ad AFTER DELETE ON " + ItemsTable.TABLE + " BEGIN " +
+                update + StatsTable.COL_SKUS + " = " + StatsTable.COL_SKUS + " - 1, " +
+                StatsTable.COL_UNITS + " = " + StatsTable.COL_UNITS + " - old." + qty + ", " +
+                StatsTable.COL_ZERO + " = " + StatsTable.COL_ZERO + " - (old." + qty + " = 0); END");
+        // only quantity changes move the totals
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_stats_au AFTER UPDATE OF " + qty + " ON " + ItemsTable.TABLE +
+                " BEGIN " +
+                update + StatsTable.COL_UNITS + " = " + StatsTable.COL_UNITS +
+                " + new." + qty + " - old." + qty + ", " +
+                StatsTable.COL_ZERO + " = " + StatsTable.COL_ZERO +
+                " + (new." + qty + " = 0) - (old." + qty + " = 0); END");
+    }
+
+    // Make the full-text table and the triggers that keep it in sync with items
+    private static void createSearchIndex(SupportSQLiteDatabase db) {
+        // prefix index makes short "abc*" lookups cheap
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + ItemsFts.TABLE + " USING fts4(" +
+                "content=\"" + ItemsTable.TABLE + "\", " +
+                ItemsFts.COLS + ", prefix=\"1,2,3\")");
+
+        String newRow = "VALUES (new." + ItemsTable.COL_ID + ", new." + ItemsTable.COL_NAME +
+                ", new." + ItemsTable.COL_SKU + ", new." + ItemsTable.COL_UPC +
+                ", new." + ItemsTable.COL_SHORT_DESC + ")";
+        String insert = "INSERT INTO " + ItemsFts.TABLE + " (docid, " + ItemsFts.COLS + ") " + newRow + ";";
+        String delete = "DELETE FROM " + ItemsFts.TABLE + " WHERE docid = old." + ItemsTable.COL_ID + ";";
+        // only text edits touch the index, quantity changes don't
+        String textCols = " OF " + ItemsFts.COLS;
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_fts_ai AFTER INSERT ON " + ItemsTable.TABLE +
+                " BEGIN " + insert + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_fts_bd BEFORE DELETE ON " + ItemsTable.TABLE +
+                " BEGIN " + delete + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_fts_bu BEFORE UPDATE" + textCols + " ON " + ItemsTable.TABLE +
+                " BEGIN " + delete + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS items_fts_au AFTER UPDATE" + textCols + " ON " + ItemsTable.TABLE +
+                " BEGIN " + insert + " END");
     }
 
     // ---------------- CRUD ----------------
@@ -64,61 +492,194 @@ public class InventoryDatabase extends SQLiteOpenHelper {
      */
     public long createItem(String name, String upc, String sku,
                            @Nullable String shortDescription, int quantity) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues cv = new ContentValues();
-        cv.put(ItemsTable.COL_NAME, safe(name));
-        cv.put(ItemsTable.COL_UPC, safe(upc));
-        cv.put(ItemsTable.COL_SKU, safe(sku));
-        if (shortDescription != null) cv.put(ItemsTable.COL_SHORT_DESC, shortDescription.trim());
-        cv.put(ItemsTable.COL_QTY, Math.max(0, quantity)); // never below 0
-        return db.insert(ItemsTable.TABLE, null, cv);
+        return createItem(name, upc, sku, shortDescription, quantity, 0);
     }
 
-    // Check if a sku already exists.
-    public boolean itemExistsBySku(String sku) {
-        SQLiteDatabase db = getReadableDatabase();
-        String[] cols = { ItemsTable.COL_ID };
-        String sel = ItemsTable.COL_SKU + " = ?";
-        String[] args = { safe(sku) };
-        try (Cursor c = db.query(ItemsTable.TABLE, cols, sel, args, null, null, null)) {
-            return c.moveToFirst();
+    // Insert with a reorder point (0 = no low-stock alert)
+    public long createItem(String name, String upc, String sku,
+                           @Nullable String shortDescription, int quantity, int reorderPoint) {
+        ItemEntity e = new ItemEntity();
+        e.name = safe(name);
+        e.upc = safe(upc);
+        e.sku = safe(sku);
+        String desc = (shortDescription != null) ? shortDescription.trim() : null;
+        e.shortDescription = desc;
+        int qty = Math.max(0, quantity); // never below 0
+        e.quantity = qty;
+        e.prevQuantity = qty;
+        int reorder = Math.max(0, reorderPoint);
+        e.reorderPoint = reorder;
+        long stamp = nextSeq();
+        e.updatedSeq = stamp;
+        long rowId = room.runInTransaction(() -> {
+            long id = dao.insert(e);
+            if (id > 0 && qty != 0) {
+                logMovement(id, e.sku, qty, StockLedger.REASON_CREATED, currentUser(), System.currentTimeMillis());
+            }
+            return id;
+        });
+        if (rowId > 0) {
+            // we already know the whole row, no need to read it back
+            publish(new ItemChange(ItemChange.Type.INSERT,
+                    new Item(rowId, safe(name), null, safe(sku), qty, safe(upc), desc, 0, reorder, stamp)));
         }
+        return rowId;
+    }
+
+    // Check if a sku already exists (a new sku is answered from memory, no query)
+    public boolean itemExistsBySku(String sku) {
+        return index.findBySku(safe(sku)) != null;
     }
 
-    // Check if a upc already exists
+    // Check if a upc already exists (a new upc is answered from memory, no query)
     public boolean itemExistsByUpc(String upc) {
-        SQLiteDatabase db = getReadableDatabase();
-        String[] cols = { ItemsTable.COL_ID };
-        String sel = ItemsTable.COL_UPC + " = ?";
-        String[] args = { safe(upc) };
-        try (Cursor c = db.query(ItemsTable.TABLE, cols, sel, args, null, null, null)) {
-            return c.moveToFirst();
-        }
+        return index.findByUpc(safe(upc)) != null;
+    }
+
+    // Point lookups through the in-memory index: the key maps to a row id in
+    // memory and the row is read by primary key. The first call after start
+    // (or after a bulk import) reads the keys of every row once.
+    @Nullable
+    public Item findItemBySku(String sku) {
+        return index.findBySku(safe(sku));
+    }
+
+    @Nullable
+    public Item findItemByUpc(String upc) {
+        return index.findByUpc(safe(upc));
+    }
+
+    // By id goes through a small LRU first: the detail screen reopens the same rows
+    @Nullable
+    public Item findItemById(long id) {
+        Item it = recent.get(id);
+        if (it != null) return it;
+        long stamp = recent.stamp();
+        it = index.findById(id);
+        if (it != null) recent.put(it, stamp);
+        return it;
+    }
+
+    // Build the index ahead of the first lookup (call off the main thread)
+    void warmIndex() {
+        index.warm();
     }
 
     // Get one item by sku
     public Cursor getItemBySku(String sku) {
-        SQLiteDatabase db = getReadableDatabase();
-        String[] cols = {
-                ItemsTable.COL_ID, ItemsTable.COL_NAME, ItemsTable.COL_UPC,
-                ItemsTable.COL_SKU, ItemsTable.COL_SHORT_DESC, ItemsTable.COL_QTY
-        };
-        String sel = ItemsTable.COL_SKU + " = ?";
-        String[] args = { safe(sku) };
-        return db.query(ItemsTable.TABLE, cols, sel, args, null, null, null);
+        return dao.getBySku(safe(sku));
     }
 
+    // Get one item by id
+    public Cursor getItemById(long id) {
+        return dao.getById(id);
+    }
 
-
-    // Get all items, sorted by name
+    // Get all items, sorted by name (lean rows: no upc or description)
     public Cursor listAllItems() {
-        SQLiteDatabase db = getReadableDatabase();
-        String[] cols = {
-                ItemsTable.COL_ID, ItemsTable.COL_NAME, ItemsTable.COL_UPC,
-                ItemsTable.COL_SKU, ItemsTable.COL_SHORT_DESC, ItemsTable.COL_QTY
-        };
-        return db.query(ItemsTable.TABLE, cols, null, null, null, null,
-                ItemsTable.COL_NAME + " ASC");
+        return dao.listAll();
+    }
+
+    /**
+     * One page of items in grid order (name, then id), using keyset paging.
+     * Pass the name and id of the last row you already have, or null for the first page.
+     * Each page is a short index range scan on idx_items_name, so it costs the
+     * same no matter how deep you scroll or how big the table is.
+     * Rows are lean (no upc or description), so a page is a fraction of the cursor window.
+     */
+    public Cursor listItemsPage(@Nullable String afterName, long afterId, int limit) {
+        String where = "";
+        Object[] args = null;
+        if (afterName != null) {
+            // row-value compare keeps ties on name in id order
+            where = " WHERE (" + ItemsTable.COL_NAME + ", " + ItemsTable.COL_ID + ") > (?, ?)";
+            args = new Object[] { afterName, afterId };
+        }
+        String sql = "SELECT " + ItemDao.GRID_COLUMNS + " FROM " + ItemsTable.TABLE + where +
+                " ORDER BY " + ItemsTable.COL_NAME + " ASC, " + ItemsTable.COL_ID + " ASC" +
+                " LIMIT " + Math.max(1, limit);
+        return getReadableDatabase().query(sql, args);
+    }
+
+    // Read every row of an items cursor into Item objects (the image key goes in
+    // imageUrlOrPath). Lean list rows come back with upc and description null.
+    public static List<Item> readItems(@Nullable Cursor c) {
+        return readItems(c, null);
+    }
+
+    /**
+     * Same, but a row whose stamp matches the Item in reuse (by id) comes back as
+     * that same instance, without reading its text. The list diff then sees
+     * identical objects and skips them.
+     */
+    static List<Item> readItems(@Nullable Cursor c, @Nullable Map<Long, Item> reuse) {
+        ArrayList<Item> list = new ArrayList<>();
+        if (c == null) return list;
+        RowReader r = new RowReader(c);
+        while (c.moveToNext()) list.add(r.read(reuse));
+        return list;
+    }
+
+    // Rows by id, to pass to readItems as reuse
+    static Map<Long, Item> byId(List<Item> rows) {
+        HashMap<Long, Item> m = new HashMap<>(rows.size() * 4 / 3 + 1);
+        for (Item it : rows) {
+            if (it.updatedSeq >= 0) m.put(it.id, it);
+        }
+        return m;
+    }
+
+    // Column positions looked up once; read() maps the cursor's current row
+    private static final class RowReader {
+        private final Cursor c;
+        private final int iId, iName, iUpc, iSku, iDesc, iQty, iVer, iRop, iSeq, iImg;
+
+        RowReader(Cursor c) {
+            this.c = c;
+            iId   = c.getColumnIndexOrThrow(ItemsTable.COL_ID);
+            iName = c.getColumnIndexOrThrow(ItemsTable.COL_NAME);
+            iUpc  = c.getColumnIndex(ItemsTable.COL_UPC);
+            iSku  = c.getColumnIndexOrThrow(ItemsTable.COL_SKU);
+            iDesc = c.getColumnIndex(ItemsTable.COL_SHORT_DESC);
+            iQty  = c.getColumnIndexOrThrow(ItemsTable.COL_QTY);
+            iVer  = c.getColumnIndex(ItemsTable.COL_VERSION);
+            iRop  = c.getColumnIndex(ItemsTable.COL_REORDER);
+            iSeq  = c.getColumnIndex(ItemsTable.COL_UPDATED_SEQ);
+            iImg  = c.getColumnIndex(ItemsTable.COL_IMAGE_KEY);
+        }
+
+        Item read(@Nullable Map<Long, Item> reuse) {
+            if (reuse != null && iSeq >= 0) {
+                Item old = reuse.get(c.getLong(iId));
+                if (old != null && old.updatedSeq == c.getLong(iSeq)) return old;
+            }
+            return read();
+        }
+
+        Item read() {
+            return new Item(
+                    c.getLong(iId),
+                    c.getString(iName),
+                    iImg >= 0 ? c.getString(iImg) : null,
+                    c.getString(iSku),
+                    c.getInt(iQty),
+                    iUpc >= 0 ? c.getString(iUpc) : null,
+                    iDesc >= 0 ? c.getString(iDesc) : null,
+                    iVer >= 0 ? c.getLong(iVer) : 0,
+                    iRop >= 0 ? c.getInt(iRop) : 0,
+                    iSeq >= 0 ? c.getLong(iSeq) : -1
+            );
+        }
+    }
+
+    // ITEM_COLUMNS as a SQL list, each name with the given prefix ("" or "items.")
+    private static String itemColumnsSql(String prefix) {
+        StringBuilder sb = new StringBuilder();
+        for (String col : ITEM_COLUMNS) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(prefix).append(col);
+        }
+        return sb.toString();
     }
 
     // ---------------- Search ----------------
@@ -133,75 +694,689 @@ public class InventoryDatabase extends SQLiteOpenHelper {
 
     // Find items by name, case-insensitive
     public Cursor listItemsByName(String query) {
-        SQLiteDatabase db = getReadableDatabase();
+        return listItemsByName(query, null);
+    }
+
+    private Cursor listItemsByName(String query, @Nullable CancellationSignal signal) {
         String q = "%" + escapeLike(query) + "%";
-        return db.query(
-                ItemsTable.TABLE,
-                new String[] {
-                        ItemsTable.COL_ID, ItemsTable.COL_NAME, ItemsTable.COL_UPC,
-                        ItemsTable.COL_SKU, ItemsTable.COL_SHORT_DESC, ItemsTable.COL_QTY
-                },
-                ItemsTable.COL_NAME + " LIKE ? ESCAPE '\\'",
-                new String[] { q },
-                null, null,
-                ItemsTable.COL_NAME + " COLLATE NOCASE ASC"
-        );
+        String sql = "SELECT " + itemColumnsSql("") + " FROM " + ItemsTable.TABLE +
+                " WHERE " + ItemsTable.COL_NAME + " LIKE ? ESCAPE '\\'" +
+                " ORDER BY " + ItemsTable.COL_NAME + " COLLATE NOCASE ASC";
+        return getReadableDatabase().query(new SimpleSQLiteQuery(sql, new Object[] { q }), signal);
+    }
+
+    /**
+     * Ranked full-text search over name, SKU, UPC and description.
+     * Every word in the query must prefix-match a word in one of those columns.
+     * Names that start with the query come first, then the rest by name.
+     */
+    public Cursor searchItems(String query, int limit) {
+        return searchItems(query, limit, null);
+    }
+
+    /**
+     * Same as searchItems(query, limit), but the query stops with an
+     * OperationCanceledException if signal is cancelled (a newer search replaced it).
+     */
+    public Cursor searchItems(String query, int limit, @Nullable CancellationSignal signal) {
+        String match = toMatchQuery(query);
+        if (match.isEmpty()) return listItemsByName(query, signal); // only punctuation typed
+
+        String t = ItemsTable.TABLE;
+        String sql = "SELECT " + itemColumnsSql(t + ".") +
+                " FROM " + ItemsFts.TABLE +
+                " JOIN " + t + " ON " + t + "." + ItemsTable.COL_ID + " = " + ItemsFts.TABLE + ".docid" +
+                " WHERE " + ItemsFts.TABLE + " MATCH ?" +
+                " ORDER BY (" + t + "." + ItemsTable.COL_NAME + " LIKE ? ESCAPE '\\') DESC, " +
+                t + "." + ItemsTable.COL_NAME + " COLLATE NOCASE ASC, " + t + "." + ItemsTable.COL_ID + " ASC" +
+                " LIMIT " + Math.max(1, limit);
+        String namePrefix = escapeLike(query == null ? "" : query.trim()) + "%";
+        return getReadableDatabase().query(
+                new SimpleSQLiteQuery(sql, new Object[] { match, namePrefix }), signal);
+    }
+
+    // Turn what the user typed into an FTS query: "blue wid" -> "blue* wid*".
+    // Splits on the same characters the FTS tokenizer does and lowercases words so
+    // nothing can be read as an operator (AND/OR/NOT/NEAR).
+    static String toMatchQuery(String query) {
+        if (query == null) return "";
+        StringBuilder out = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        String q = query.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= q.length(); i++) {
+            char c = i < q.length() ? q.charAt(i) : ' ';
+            boolean tokenChar = Character.isLetterOrDigit(c) || c >= 128;
+            if (tokenChar) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                if (out.length() > 0) out.append(' ');
+                out.append(word).append('*');
+                word.setLength(0);
+            }
+        }
+        return out.toString();
     }
 
     // ---------------- Quantity & updates ----------------
 
     // Set quantity by sku
     public int updateQuantityBySku(String sku, int newQuantity) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues cv = new ContentValues();
-        cv.put(ItemsTable.COL_QTY, Math.max(0, newQuantity));
-        String where = ItemsTable.COL_SKU + " = ?";
-        String[] args = { safe(sku) };
-        return db.update(ItemsTable.TABLE, cv, where, args);
+        return updateReturning(
+                QTY_SET,
+                ItemsTable.COL_SKU + " = ?",
+                new Object[] { newQuantity, safe(sku) },
+                StockLedger.REASON_SET).size();
     }
 
     // Add or subtract from quantity by sku
     public int adjustQuantityBySku(String sku, int delta) {
-        int updated = 0;
-        try (Cursor c = getItemBySku(sku)) {
-            if (c != null && c.moveToFirst()) {
-                int current = c.getInt(c.getColumnIndexOrThrow(ItemsTable.COL_QTY));
-                updated = updateQuantityBySku(sku, Math.max(0, current + delta));
+        return applyQuantityDelta(sku, delta) >= 0 ? 1 : 0;
+    }
+
+    /**
+     * Add delta to the quantity in one statement, clamped at 0.
+     * SQLite does the math, so two threads adjusting the same sku can't lose an update.
+     * @return the new quantity, or -1 if the sku doesn't exist
+     */
+    public int applyQuantityDelta(String sku, int delta) {
+        List<Item> rows = updateReturning(
+                QTY_PLUS_DELTA,
+                ItemsTable.COL_SKU + " = ?",
+                new Object[] { delta, safe(sku) },
+                StockLedger.REASON_ADJUST);
+        return rows.isEmpty() ? -1 : rows.get(0).quantity;
+    }
+
+    /**
+     * Compare-and-set: change the quantity only if the row is still at expectedVersion.
+     * Lets an edit screen notice that someone else changed the item since it was loaded.
+     * @return the row after the change, or null if the version moved on (or no such sku)
+     */
+    @Nullable
+    public Item updateQuantityIfVersion(String sku, long expectedVersion, int newQuantity) {
+        List<Item> rows = updateReturning(
+                QTY_SET,
+                ItemsTable.COL_SKU + " = ? AND " + ItemsTable.COL_VERSION + " = ?",
+                new Object[] { newQuantity, safe(sku), expectedVersion },
+                StockLedger.REASON_SET);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Write a batch of ledger movements in one transaction (StockLedger's group commit).
+     * Each SKU gets one UPDATE for its net change; every movement gets its own ledger row.
+     * An absolute movement (a typed quantity) replaces the movements before it for that
+     * SKU, and with an expected version it only applies if the row is still at it.
+     * Deltas stop at 0, or at the floor the movements carry (taps clamped one at a time);
+     * a "clamped" row records the part that didn't apply, so the ledger still adds up.
+     * Movements for unknown SKUs are dropped.
+     */
+    void applyMovements(List<StockLedger.Movement> moves) {
+        applyMovements(moves, null);
+    }
+
+    /**
+     * Same, running afterCommit once the transaction commits and before the change
+     * feed hears about it. It gets the SKUs that were skipped.
+     * @return SKUs skipped because an absolute movement's expected version didn't match
+     */
+    Set<String> applyMovements(List<StockLedger.Movement> moves,
+                               @Nullable Consumer<Set<String>> afterCommit) {
+        LinkedHashMap<String, List<StockLedger.Movement>> bySku = new LinkedHashMap<>();
+        for (StockLedger.Movement m : moves) {
+            List<StockLedger.Movement> list = bySku.computeIfAbsent(m.sku, k -> new ArrayList<>());
+            // a typed quantity replaces what came before it
+            if (m.absolute) list.clear();
+            list.add(m);
+        }
+        String user = currentUser();
+        long now = System.currentTimeMillis();
+        WriteBatch batch = new WriteBatch();
+        HashSet<String> conflicts = new HashSet<>();
+        room.runInTransaction(() -> {
+            for (Map.Entry<String, List<StockLedger.Movement>> e : bySku.entrySet()) {
+                List<StockLedger.Movement> list = e.getValue();
+                StockLedger.Movement first = list.get(0);
+                int net = 0;
+                int floor = 0;
+                for (StockLedger.Movement m : list) {
+                    net += m.delta;
+                    floor = Math.max(floor, m.floor);
+                }
+                final int value = net;
+                final boolean absolute = first.absolute;
+                String where = ItemsTable.COL_SKU + " = ?";
+                // a typed quantity is known here, so its floor is applied up front
+                Object[] args = absolute
+                        ? new Object[] { Math.max(floor, net), e.getKey() }
+                        : new Object[] { floor, net, e.getKey() };
+                if (absolute && first.expectedVersion >= 0) {
+                    where += " AND " + ItemsTable.COL_VERSION + " = ?";
+                    args = new Object[] { Math.max(floor, net), e.getKey(), first.expectedVersion };
+                }
+                int before = batch.rows.size();
+                updateReturningInto(absolute ? QTY_SET : QTY_PLUS_DELTA_FLOORED, where, args, batch,
+                        (it, prev) -> {
+                            int wanted = absolute ? value - prev : value;
+                            for (StockLedger.Movement m : list) {
+                                // the typed quantity is logged as the change it made
+                                int d = m.absolute ? m.delta - prev : m.delta;
+                                if (d != 0) logMovement(it.id, it.sku, d, m.reason, user, m.at);
+                            }
+                            int lost = (it.quantity - prev) - wanted;
+                            if (lost != 0) logMovement(it.id, it.sku, lost, StockLedger.REASON_CLAMPED, user, now);
+                        });
+                if (absolute && first.expectedVersion >= 0 && batch.rows.size() == before) {
+                    conflicts.add(e.getKey());
+                }
+            }
+        });
+        if (afterCommit != null) afterCommit.accept(conflicts);
+        publish(batch);
+        return conflicts;
+    }
+
+    /**
+     * Apply a receiving file or POS export in one transaction.
+     * Lines are staged with one precompiled INSERT ... ON CONFLICT(sku) DO UPDATE into a
+     * temp table, which folds repeated SKUs into (base, delta). Then one INSERT ... SELECT
+     * logs the ledger and one UPDATE ... FROM writes every matching item; the rows it
+     * changed are read back by their stamp (see updateFromInto).
+     * @return one outcome per input line, in order
+     */
+    public StockBatch.Result applyStockBatch(StockBatch batch, String reason) {
+        long start = System.nanoTime();
+        String user = currentUser();
+        long now = System.currentTimeMillis();
+        // what each SKU adds up to, to tell clamped lines from the returned rows
+        HashMap<String, int[]> net = new HashMap<>();          // sku -> {hasBase, base, delta}
+        HashMap<String, int[]> written = new HashMap<>();      // sku -> {prev, after}
+        WriteBatch rows = new WriteBatch();
+        room.runInTransaction(() -> {
+            SupportSQLiteDatabase w = getWritableDatabase();
+            // temp tables belong to one connection; the transaction keeps us on it
+            w.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + QTY_BATCH_TABLE +
+                    " (sku TEXT PRIMARY KEY NOT NULL, base INTEGER, delta INTEGER NOT NULL)");
+            w.execSQL("DELETE FROM " + QTY_BATCH_TABLE);
+            SupportSQLiteStatement stage = w.compileStatement(
+                    "INSERT INTO " + QTY_BATCH_TABLE + " (sku, base, delta) VALUES (?, ?, ?)" +
+                            " ON CONFLICT(sku) DO UPDATE SET" +
+                            " base = COALESCE(excluded.base, base)," +
+                            " delta = CASE WHEN excluded.base IS NULL THEN delta + excluded.delta ELSE 0 END");
+            try {
+                for (StockBatch.Line l : batch.lines) {
+                    if (!l.isValid()) continue;
+                    int[] n = net.computeIfAbsent(l.sku, k -> new int[3]);
+                    stage.bindString(1, l.sku);
+                    if (l.absolute) {
+                        n[0] = 1;
+                        n[1] = l.value;
+                        n[2] = 0;
+                        stage.bindLong(2, l.value);
+                        stage.bindLong(3, 0);
+                    } else {
+                        n[2] += l.value;
+                        stage.bindNull(2);
+                        stage.bindLong(3, l.value);
+                    }
+                    stage.executeInsert();
+                    stage.clearBindings();
+                }
+            } finally {
+                try { stage.close(); } catch (IOException ignored) { }
+            }
+
+            // clamped here, once per SKU on the net result, so no line ever reaches the
+            // quantity guard: a bad line can't abort the whole batch
+            String target = "MAX(0, COALESCE(b.base, i." + ItemsTable.COL_QTY + ") + b.delta)";
+            w.execSQL("INSERT INTO " + StockMovementEntity.TABLE +
+                    " (item_id, sku, delta, reason, username, created_at)" +
+                    " SELECT i." + ItemsTable.COL_ID + ", i." + ItemsTable.COL_SKU + ", " +
+                    target + " - i." + ItemsTable.COL_QTY + ", ?, ?, ?" +
+                    " FROM " + QTY_BATCH_TABLE + " b JOIN " + ItemsTable.TABLE + " i ON i." +
+                    ItemsTable.COL_SKU + " = b.sku" +
+                    " WHERE " + target + " != i." + ItemsTable.COL_QTY,
+                    new Object[] { reason, user, now });
+            updateFromInto(
+                    ItemsTable.COL_QTY + " = MAX(0, COALESCE(b.base, " + ItemsTable.COL_QTY + ") + b.delta)",
+                    QTY_BATCH_TABLE + " b",
+                    "b.sku = " + ItemsTable.TABLE + "." + ItemsTable.COL_SKU,
+                    new Object[0], null, rows,
+                    (it, prev) -> written.put(it.sku, new int[] { prev, it.quantity }));
+            w.execSQL("DELETE FROM " + QTY_BATCH_TABLE);
+        });
+        publish(rows);
+
+        List<StockBatch.Row> out = new ArrayList<>(batch.lines.size());
+        for (StockBatch.Line l : batch.lines) {
+            if (!l.isValid()) {
+                out.add(new StockBatch.Row(l.sku, StockBatch.Outcome.INVALID, -1));
+                continue;
             }
+            int[] wr = written.get(l.sku);
+            if (wr == null) {
+                out.add(new StockBatch.Row(l.sku, StockBatch.Outcome.UNKNOWN_SKU, -1));
+                continue;
+            }
+            int[] n = net.get(l.sku);
+            long raw = (long) (n[0] == 1 ? n[1] : wr[0]) + n[2];
+            out.add(new StockBatch.Row(l.sku,
+                    raw < 0 ? StockBatch.Outcome.CLAMPED : StockBatch.Outcome.APPLIED, wr[1]));
         }
-        return updated;
+        return new StockBatch.Result(out, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /**
+     * Fold ledger rows older than cutoff (epoch ms) into one "compacted" row per item,
+     * and drop rows for items that no longer exist. Sums per item don't change.
+     * @return how many ledger rows were folded away
+     */
+    int compactMovements(long cutoff) {
+        String t = StockMovementEntity.TABLE;
+        return room.runInTransaction(() -> {
+            SupportSQLiteDatabase w = getWritableDatabase();
+            long lastId;
+            // ids grow with time, so "older than cutoff" is a prefix of the table
+            try (Cursor c = w.query("SELECT MAX(id) FROM " + t + " WHERE created_at < ?",
+                    new Object[] { cutoff })) {
+                if (!c.moveToFirst() || c.isNull(0)) return 0;
+                lastId = c.getLong(0);
+            }
+            w.execSQL("INSERT INTO " + t + " (item_id, sku, delta, reason, username, created_at)" +
+                    " SELECT m.item_id, i." + ItemsTable.COL_SKU + ", SUM(m.delta), '" +
+                    StockLedger.REASON_COMPACTED + "', NULL, MAX(m.created_at)" +
+                    " FROM " + t + " m JOIN " + ItemsTable.TABLE + " i ON i." + ItemsTable.COL_ID + " = m.item_id" +
+                    " WHERE m.id <= ? GROUP BY m.item_id HAVING SUM(m.delta) != 0",
+                    new Object[] { lastId });
+            return w.delete(t, "id <= ?", new Object[] { lastId });
+        });
+    }
+
+    // Staging table for applyStockBatch (per connection, emptied after each batch)
+    private static final String QTY_BATCH_TABLE = "temp.qty_batch";
+
+    // SET expressions for the quantity writers
+    private static final String QTY_SET =
+            ItemsTable.COL_QTY + " = MAX(0, CAST(? AS INTEGER))";
+    private static final String QTY_PLUS_DELTA =
+            ItemsTable.COL_QTY + " = MAX(0, " + ItemsTable.COL_QTY + " + CAST(? AS INTEGER))";
+    // binds the floor, then the delta
+    private static final String QTY_PLUS_DELTA_FLOORED =
+            ItemsTable.COL_QTY + " = MAX(CAST(? AS INTEGER), " + ItemsTable.COL_QTY + " + CAST(? AS INTEGER))";
+
+    // Past this many rows, screens reload instead of patching row by row
+    private static final int MAX_ROW_CHANGES = 500;
+
+    // Rows changed by one transaction; published together after it commits
+    private static final class WriteBatch {
+        final List<Item> rows = new ArrayList<>();
+        final LowStockEvent.Builder crossings = new LowStockEvent.Builder();
+    }
+
+    // Sees each updated row with its quantity from before the update
+    private interface RowHook {
+        void onRow(Item after, int prevQuantity);
+    }
+
+    // One UPDATE ... RETURNING in its own transaction, logged to the ledger under reason
+    private List<Item> updateReturning(String set, String where, Object[] args, String reason) {
+        String user = currentUser();
+        long now = System.currentTimeMillis();
+        WriteBatch batch = new WriteBatch();
+        room.runInTransaction(() -> updateReturningInto(set, where, args, batch, (it, prev) -> {
+            if (it.quantity != prev) logMovement(it.id, it.sku, it.quantity - prev, reason, user, now);
+        }));
+        publish(batch);
+        return batch.rows;
+    }
+
+    // UPDATE ... RETURNING: changes the row, bumps its version and hands back the
+    // new row in the same statement. Runs inside the caller's transaction.
+    // Only for a where that picks one row by a unique key; set-based writes go
+    // through updateFromInto.
+    private void updateReturningInto(String set, String where, Object[] args,
+                                     WriteBatch batch, @Nullable RowHook hook) {
+        String sql = "UPDATE " + ItemsTable.TABLE + " SET " + stampedSet(set) +
+                " WHERE " + where + " RETURNING " + itemColumnsSql(ItemsTable.TABLE + ".") +
+                ", " + ItemsTable.TABLE + "." + ItemsTable.COL_PREV_QTY;
+        // one forward pass: moving back could make the cursor re-run the UPDATE
+        try (Cursor c = getWritableDatabase().query(sql, withStamp(nextSeq(), args))) {
+            readChanged(c, batch, hook);
+        }
+    }
+
+    // UPDATE ... FROM for set-based writes: every row of items that match joins to
+    // from, narrowed by filter (which takes no args). Not RETURNING: its rows come
+    // through a cursor, and a cursor that outgrows its window (a few thousand rows)
+    // runs the statement again to fill the next one, which would apply the write
+    // twice. So the UPDATE runs on its own and a plain SELECT over the same join
+    // reads back the rows it stamped. Runs inside the caller's transaction.
+    private void updateFromInto(String set, String from, String match, Object[] args,
+                                @Nullable String filter, WriteBatch batch, @Nullable RowHook hook) {
+        SupportSQLiteDatabase w = getWritableDatabase();
+        long stamp = nextSeq();
+        w.execSQL("UPDATE " + ItemsTable.TABLE + " SET " + stampedSet(set) + " FROM " + from +
+                " WHERE " + match + (filter == null ? "" : " AND " + filter), withStamp(stamp, args));
+        // the stamp is this statement's alone, so it picks out exactly the rows it changed
+        Object[] readArgs = Arrays.copyOf(args, args.length + 1);
+        readArgs[args.length] = stamp;
+        try (Cursor c = w.query("SELECT " + itemColumnsSql(ItemsTable.TABLE + ".") + ", " +
+                ItemsTable.TABLE + "." + ItemsTable.COL_PREV_QTY +
+                " FROM " + from + " JOIN " + ItemsTable.TABLE + " ON " + match +
+                " WHERE " + ItemsTable.TABLE + "." + ItemsTable.COL_UPDATED_SEQ + " = ?", readArgs)) {
+            readChanged(c, batch, hook);
+        }
+    }
+
+    // SET for both writers: stamp, version bump, and the old quantity kept in
+    // prev_quantity, so the row read back has both and threshold crossings cost
+    // no extra read. The stamp is the first parameter, ahead of the caller's.
+    private static String stampedSet(String set) {
+        return ItemsTable.COL_UPDATED_SEQ + " = ?, " +
+                ItemsTable.COL_PREV_QTY + " = " + ItemsTable.COL_QTY + ", " + set + ", " +
+                ItemsTable.COL_VERSION + " = " + ItemsTable.COL_VERSION + " + 1";
+    }
+
+    private static Object[] withStamp(long stamp, Object[] args) {
+        Object[] stamped = new Object[args.length + 1];
+        stamped[0] = stamp;
+        System.arraycopy(args, 0, stamped, 1, args.length);
+        return stamped;
+    }
+
+    // Collect changed rows (item columns, then prev_quantity) into the batch
+    private static void readChanged(Cursor c, WriteBatch batch, @Nullable RowHook hook) {
+        List<Item> rows = new ArrayList<>();
+        List<Integer> prevs = new ArrayList<>();
+        RowReader r = new RowReader(c);
+        int iPrev = c.getColumnIndexOrThrow(ItemsTable.COL_PREV_QTY);
+        while (c.moveToNext()) {
+            rows.add(r.read());
+            prevs.add(c.getInt(iPrev));
+        }
+        // the hook runs after the last row is read, before anything else uses the connection
+        for (int i = 0; i < rows.size(); i++) {
+            Item it = rows.get(i);
+            int prev = prevs.get(i);
+            batch.rows.add(it);
+            batch.crossings.add(prev, it);
+            if (hook != null) hook.onRow(it, prev);
+        }
+    }
+
+    /**
+     * Stamp for the next write. Only goes up (for this file), so a row whose
+     * updated_seq hasn't moved hasn't changed and list loaders can keep the Item
+     * they already have. One stamp may cover every row of one statement.
+     */
+    long nextSeq() {
+        if (seq.get() < 0) {
+            synchronized (seq) {
+                if (seq.get() < 0) {
+                    try (Cursor c = getWritableDatabase().query("SELECT IFNULL(MAX(" +
+                            ItemsTable.COL_UPDATED_SEQ + "), 0) FROM " + ItemsTable.TABLE)) {
+                        seq.set(c.moveToFirst() ? c.getLong(0) : 0);
+                    }
+                }
+            }
+        }
+        return seq.incrementAndGet();
+    }
+
+    // Append one ledger row (inside the caller's transaction; the statement is cached)
+    private void logMovement(long itemId, String sku, int delta, String reason,
+                             @Nullable String user, long at) {
+        getWritableDatabase().execSQL("INSERT INTO " + StockMovementEntity.TABLE +
+                        " (item_id, sku, delta, reason, username, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                new Object[] { itemId, sku, delta, reason, user, at });
+    }
+
+    // Publish a committed batch: each row to the feed (or one RELOAD if there are
+    // too many to patch in), then one stock-level event
+    private void publish(WriteBatch batch) {
+        if (batch.rows.size() > MAX_ROW_CHANGES) {
+            publish(ItemChange.RELOAD);
+        } else {
+            for (Item it : batch.rows) publish(new ItemChange(ItemChange.Type.UPDATE, it));
+        }
+        // one event for the whole transaction, however many rows crossed
+        if (!batch.crossings.isEmpty()) InventoryChangeFeed.publishLowStock(batch.crossings.build());
+    }
+
+    // ---------------- Cycle counts ----------------
+
+    // The open cycle count, or a new one if none is open (io thread)
+    long openCountSession() {
+        SupportSQLiteDatabase w = getWritableDatabase();
+        try (Cursor c = w.query("SELECT id FROM " + CycleCountSessionEntity.TABLE +
+                " WHERE closed_at IS NULL ORDER BY id DESC LIMIT 1")) {
+            if (c.moveToFirst()) return c.getLong(0);
+        }
+        ContentValues cv = new ContentValues();
+        cv.put("started_at", System.currentTimeMillis());
+        cv.put("username", currentUser());
+        return w.insert(CycleCountSessionEntity.TABLE, SQLiteDatabase.CONFLICT_ABORT, cv);
+    }
+
+    // Lines saved so far for a session, to resume after a crash or restart (io thread)
+    HashMap<String, Integer> loadCountLines(long session) {
+        HashMap<String, Integer> lines = new HashMap<>();
+        try (Cursor c = getReadableDatabase().query("SELECT sku, counted FROM " +
+                CycleCountLineEntity.TABLE + " WHERE session_id = ?", new Object[] { session })) {
+            while (c.moveToNext()) lines.put(c.getString(0), c.getInt(1));
+        }
+        return lines;
+    }
+
+    // Upsert changed lines in one transaction, one compiled statement (io thread)
+    void saveCountLines(long session, Map<String, Integer> lines) {
+        if (lines.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        room.runInTransaction(() -> {
+            SupportSQLiteStatement upsert = getWritableDatabase().compileStatement(
+                    "INSERT INTO " + CycleCountLineEntity.TABLE +
+                            " (session_id, sku, counted, counted_at) VALUES (?, ?, ?, ?)" +
+                            " ON CONFLICT(session_id, sku) DO UPDATE SET" +
+                            " counted = excluded.counted, counted_at = excluded.counted_at");
+            try {
+                for (Map.Entry<String, Integer> e : lines.entrySet()) {
+                    upsert.bindLong(1, session);
+                    upsert.bindString(2, e.getKey());
+                    upsert.bindLong(3, e.getValue());
+                    upsert.bindLong(4, now);
+                    upsert.executeInsert();
+                }
+            } finally {
+                try { upsert.close(); } catch (IOException ignored) { }
+            }
+        });
+    }
+
+    /**
+     * Compare a session's counts with items in one aggregate query.
+     * Items nobody counted are left alone; SKUs not in items are reported as unknown.
+     */
+    CycleCountSession.Summary countSummary(long session) {
+        String sql = "SELECT COUNT(*)," +
+                " SUM(i." + ItemsTable.COL_ID + " IS NULL)," +
+                " SUM(c.counted > i." + ItemsTable.COL_QTY + ")," +
+                " SUM(c.counted < i." + ItemsTable.COL_QTY + ")," +
+                " TOTAL(c.counted - i." + ItemsTable.COL_QTY + ")" +
+                " FROM " + CycleCountLineEntity.TABLE + " c" +
+                " LEFT JOIN " + ItemsTable.TABLE + " i ON i." + ItemsTable.COL_SKU + " = c.sku" +
+                " WHERE c.session_id = ?";
+        try (Cursor c = getReadableDatabase().query(sql, new Object[] { session })) {
+            if (!c.moveToFirst()) return new CycleCountSession.Summary(0, 0, 0, 0, 0);
+            return new CycleCountSession.Summary(c.getInt(0), c.getInt(1), c.getInt(2),
+                    c.getInt(3), c.getLong(4));
+        }
+    }
+
+    /**
+     * Counted lines that differ from items, biggest difference first.
+     * Columns: _id, sku, name, quantity, counted, variance. Caller closes.
+     */
+    Cursor listCountVariance(long session, int limit) {
+        String sql = "SELECT i." + ItemsTable.COL_ID + ", i." + ItemsTable.COL_SKU + ", i." + ItemsTable.COL_NAME +
+                ", i." + ItemsTable.COL_QTY + ", c.counted, c.counted - i." + ItemsTable.COL_QTY + " AS variance" +
+                " FROM " + CycleCountLineEntity.TABLE + " c" +
+                " JOIN " + ItemsTable.TABLE + " i ON i." + ItemsTable.COL_SKU + " = c.sku" +
+                " WHERE c.session_id = ? AND c.counted != i." + ItemsTable.COL_QTY +
+                " ORDER BY ABS(c.counted - i." + ItemsTable.COL_QTY + ") DESC, i." + ItemsTable.COL_ID +
+                " LIMIT ?";
+        return getReadableDatabase().query(sql, new Object[] { session, limit });
+    }
+
+    /**
+     * Apply a session: set every counted item to its count in one UPDATE ... FROM,
+     * log each correction to the ledger, and close the session. All one transaction.
+     * The changed rows are read back by their stamp afterwards (see updateFromInto).
+     * @return how many items changed
+     */
+    int applyCountSession(long session) {
+        String user = currentUser();
+        long now = System.currentTimeMillis();
+        WriteBatch batch = new WriteBatch();
+        String lines = CycleCountLineEntity.TABLE;
+        room.runInTransaction(() -> {
+            SupportSQLiteDatabase w = getWritableDatabase();
+            // ledger first, while items still has the old quantities
+            w.execSQL("INSERT INTO " + StockMovementEntity.TABLE +
+                    " (item_id, sku, delta, reason, username, created_at)" +
+                    " SELECT i." + ItemsTable.COL_ID + ", i." + ItemsTable.COL_SKU +
+                    ", c.counted - i." + ItemsTable.COL_QTY + ", '" + StockLedger.REASON_COUNT + "', ?, ?" +
+                    " FROM " + lines + " c JOIN " + ItemsTable.TABLE + " i ON i." + ItemsTable.COL_SKU + " = c.sku" +
+                    " WHERE c.session_id = ? AND c.counted != i." + ItemsTable.COL_QTY,
+                    new Object[] { user, now, session });
+            updateFromInto(
+                    ItemsTable.COL_QTY + " = MAX(0, c.counted)",
+                    lines + " c",
+                    "c.session_id = ? AND c.sku = " + ItemsTable.TABLE + "." + ItemsTable.COL_SKU,
+                    new Object[] { session },
+                    "c.counted != " + ItemsTable.TABLE + "." + ItemsTable.COL_QTY,
+                    batch, null);
+            closeCountSession(w, session, now);
+        });
+        publish(batch);
+        return batch.rows.size();
+    }
+
+    // Drop a session without changing any quantities
+    void discardCountSession(long session) {
+        room.runInTransaction(() ->
+                closeCountSession(getWritableDatabase(), session, System.currentTimeMillis()));
+    }
+
+    // Lines are only needed while counting; the ledger keeps what was applied
+    private static void closeCountSession(SupportSQLiteDatabase w, long session, long now) {
+        w.delete(CycleCountLineEntity.TABLE, "session_id = ?", new Object[] { session });
+        ContentValues cv = new ContentValues();
+        cv.put("closed_at", now);
+        w.update(CycleCountSessionEntity.TABLE, SQLiteDatabase.CONFLICT_NONE, cv,
+                "id = ?", new Object[] { session });
+    }
+
+    // ---------------- Images ----------------
+
+    /**
+     * Point an item at a stored photo, or at none (key null). The row comes back
+     * through the change feed, so the grid and the details screen redraw it.
+     * @return the row after the change, or null if there is no such item
+     */
+    @Nullable
+    public Item setItemImage(long id, @Nullable String key) {
+        WriteBatch batch = new WriteBatch();
+        room.runInTransaction(() -> updateReturningInto(
+                ItemsTable.COL_IMAGE_KEY + " = ?", ItemsTable.COL_ID + " = ?",
+                new Object[] { key, id }, batch, null));
+        publish(batch);
+        return batch.rows.isEmpty() ? null : batch.rows.get(0);
+    }
+
+    // Every photo key in use, so the image store can drop the rest
+    List<String> listImageKeys() {
+        List<String> keys = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query("SELECT DISTINCT " + ItemsTable.COL_IMAGE_KEY +
+                " FROM " + ItemsTable.TABLE + " WHERE " + ItemsTable.COL_IMAGE_KEY + " IS NOT NULL")) {
+            while (c.moveToNext()) keys.add(c.getString(0));
+        }
+        return keys;
     }
 
     // ---------------- Deletes ----------------
 
     // Delete one row by id
     public int deleteItemById(long id) {
-        SQLiteDatabase db = getWritableDatabase();
-        String where = ItemsTable.COL_ID + " = ?";
-        String[] args = { String.valueOf(id) };
-        return db.delete(ItemsTable.TABLE, where, args);
+        return deleteRows(() -> getItemById(id), () -> dao.deleteById(id));
     }
 
     // Delete one row by sku
     public int deleteBySku(String sku) {
-        SQLiteDatabase db = getWritableDatabase();
-        String where = ItemsTable.COL_SKU + " = ?";
-        String[] args = { safe(sku) };
-        return db.delete(ItemsTable.TABLE, where, args);
+        return deleteRows(() -> getItemBySku(sku), () -> dao.deleteBySku(safe(sku)));
     }
 
-    // Get only items with qty == 0
+    // Delete rows and publish them. The rows are read first (same transaction)
+    // so listeners get the whole item that went away.
+    private int deleteRows(CursorSource before, DeleteAction delete) {
+        List<Item> gone = new ArrayList<>();
+        int deleted = room.runInTransaction(() -> {
+            try (Cursor c = before.open()) {
+                gone.addAll(readItems(c));
+            }
+            return delete.run();
+        });
+        if (deleted > 0) {
+            for (Item it : gone) publish(new ItemChange(ItemChange.Type.DELETE, it));
+        }
+        return deleted;
+    }
+
+    private interface CursorSource { Cursor open(); }
+    private interface DeleteAction { int run(); }
+
+    // Just what the grid snapshot stores: the first rows in grid order (name, then id)
+    public Cursor listGridRows(int limit) {
+        return dao.listGridRows(limit);
+    }
+
+    // Get only items with qty == 0 (walks idx_items_zero, no scan or sort)
     public Cursor listItemsWithZeroQty() {
-        SQLiteDatabase db = getReadableDatabase();
-        String[] cols = {
-                "_id", "name", "upc", "sku", "short_description", "quantity"
-        };
-        String sel = "quantity = 0";
-        return db.query("items", cols, sel, null, null, null, "name COLLATE NOCASE ASC");
+        return dao.listZeroQty();
+    }
+
+    // Items below their reorder point (walks idx_items_low, no scan or sort)
+    public Cursor listLowStockItems() {
+        return dao.listLowStock();
+    }
+
+    // SKU, unit and out-of-stock totals. Reads the one stats row, so it costs
+    // the same for 10 items or 100k.
+    public Stats getInventoryStats() {
+        Stats s = dao.stats();
+        return s != null ? s : new Stats(0, 0, 0);
     }
 
     // ---------------- Helpers ----------------
 
+    // After a write commits: update the index, then tell the screens.
+    // Never call inside a transaction (an index rebuild may be waiting on the connection).
+    void publish(ItemChange change) {
+        index.apply(change);
+        recent.apply(change);
+        // raw SQL writes skip Room's transaction hooks, so ask it to check for changes
+        room.getInvalidationTracker().refreshVersionsAsync();
+        InventoryChangeFeed.publish(change);
+    }
+
+    // The one row of a point-lookup cursor, or null; closes the cursor
+    @Nullable
+    private static Item first(Cursor c) {
+        try (Cursor rows = c) {
+            if (!rows.moveToFirst()) return null;
+            return new RowReader(rows).read(null);
+        }
+    }
+
     //Trim strings and avoid nulls.
     private String safe(String s) {
         return (s == null) ? "" : s.trim();
@@ -1,52 +1,41 @@
 package com.example.brookesellerinventoryapp;
 
 import android.database.Cursor;
-import android.graphics.Rect;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Looper;
-import android.view.View;
 
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 // Simple screen that shows all items from the database in a grid.
 public class InventoryDatabaseActivity extends AppCompatActivity {
 
     private RecyclerView productGrid;           // the grid on screen
     private InventoryCardAdapter adapter;       // binds Item data to cards
+    private InventoryPager pager;               // loads cards a page at a time
     private InventoryDatabase db;               // SQLite helper
 
-    private ExecutorService io;                 // background thread for database
+    private Executor io;                        // shared reader threads for database
+    private Executor writer;                    // shared writer thread
     private Handler main;                       // posts results
 
+    // row changes from any screen patch the grid in place
+    private final InventoryChangeFeed.Listener feedListener =
+            change -> main.post(() -> pager.apply(change));
+
     @Override protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.inventory_database_activity); // inflate layout
 
-        db = new InventoryDatabase(this);                     // open/create database
-        io = Executors.newSingleThreadExecutor();             // one background worker
-        main = new Handler(Looper.getMainLooper());           // main-thread handler
+        InventoryRepository repo = InventoryRepository.get(this);
+        db = repo.db();                                       // shared database
+        io = repo.io();                                       // shared background readers
+        writer = repo.writer();                               // and the one writer
+        main = repo.main();                                   // main-thread handler
 
         productGrid = findViewById(R.id.productGrid);         // find RecyclerView
-        productGrid.setLayoutManager(new GridLayoutManager(this, 2)); // 2 columns
-        productGrid.setHasFixedSize(true);
-
-        // Add equal space around each card (12dp)
-        final int space = (int) (12 * getResources().getDisplayMetrics().density);
-        productGrid.addItemDecoration(new RecyclerView.ItemDecoration() {
-            @Override public void getItemOffsets(@NonNull Rect outRect, @NonNull View v,
-                                                 @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
-                outRect.set(space, space, space, space);
-            }
-        });
 
         // Set up adapter actions: +1, -1, and tap
         adapter = new InventoryCardAdapter(new InventoryCardAdapter.OnItemAction() {
@@ -54,7 +43,10 @@ public class InventoryDatabaseActivity extends AppCompatActivity {
             @Override public void onDecrease(Item item) { updateQtyAsync(item.sku, -1); }
             @Override public void onClick(Item item) { /* open details if you have a screen */ }
         });
-        productGrid.setAdapter(adapter);                       // attach adapter
+        InventoryGrid.attach(productGrid, adapter);            // 2 columns, shared card pool
+        pager = new InventoryPager(db, io, main, adapter);     // pages load as the grid scrolls
+        adapter.setOnNearEnd(pager);
+        InventoryChangeFeed.addListener(feedListener);
 
         seedIfEmptyThenLoad();                                 // put sample data if empty, then load
     }
@@ -66,14 +58,16 @@ public class InventoryDatabaseActivity extends AppCompatActivity {
 
     @Override protected void onDestroy() {
         super.onDestroy();
-        if (io != null) io.shutdown();                         // stop background worker
+        InventoryChangeFeed.removeListener(feedListener);
+        if (pager != null) pager.release();                    // drop late page results
+        InventoryGrid.detach(productGrid);                     // cards go back to the pool
     }
 
    // If table is empty, insert two rows, then load items.
     private void seedIfEmptyThenLoad() {
-        io.execute(() -> {
+        writer.execute(() -> {
             boolean empty;
-            try (Cursor c = db.listAllItems()) {
+            try (Cursor c = db.listItemsPage(null, 0, 1)) {   // one row is enough to check
                 empty = (c == null || !c.moveToFirst());
             }
             if (empty) {
@@ -84,50 +78,13 @@ public class InventoryDatabaseActivity extends AppCompatActivity {
         });
     }
 
-    // Load all items on a background thread and push to the adapter.
+    // Load the first page(s) of items; more pages load as the grid scrolls.
     private void loadItemsAsync() {
-        io.execute(() -> {
-            List<Item> items = queryAllItems();                // read from DB
-            main.post(() -> adapter.submitList(items));        // update UI
-        });
+        pager.refresh();
     }
 
-    //Change quantity by delta for a given sku, then refresh list.
+    //Change quantity by delta for a given sku; the change feed updates the card.
     private void updateQtyAsync(String sku, int delta) {
-        io.execute(() -> {
-            db.adjustQuantityBySku(sku, delta);                // +1 or -1
-            List<Item> items = queryAllItems();
-            main.post(() -> adapter.submitList(items));        // show new values
-        });
-    }
-
-    // Read all rows from database and convert them into Item objects.
-    private List<Item> queryAllItems() {
-        ArrayList<Item> list = new ArrayList<>();
-        try (Cursor c = db.listAllItems()) {
-            if (c != null) {
-                // Get column positions once
-                int iId    = c.getColumnIndexOrThrow("_id");
-                int iName  = c.getColumnIndexOrThrow("name");
-                int iSku   = c.getColumnIndexOrThrow("sku");
-                int iQty   = c.getColumnIndexOrThrow("quantity");
-                int iUpc   = c.getColumnIndexOrThrow("upc");
-                int iDesc  = c.getColumnIndexOrThrow("short_description");
-
-                // Build Item objects and add to list
-                while (c.moveToNext()) {
-                    list.add(new Item(
-                            c.getLong(iId),                // id
-                            c.getString(iName),            // name
-                            null,                          // imageUrlOrPath
-                            c.getString(iSku),             // sku
-                            c.getInt(iQty),                // quantity
-                            c.getString(iUpc),             // upc
-                            c.getString(iDesc)             // description
-                    ));
-                }
-            }
-        }
-        return list;                                           // return
+        writer.execute(() -> db.adjustQuantityBySku(sku, delta)); // +1 or -1
     }
 }
@@ -1,54 +1,36 @@
 package com.example.brookesellerinventoryapp;
 
-import android.content.Intent;
 import android.database.Cursor;
-import android.graphics.Rect;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
-import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 public class InventoryFragment extends Fragment {
 
     private RecyclerView productGrid;
     private InventoryCardAdapter adapter;
+    private InventoryPager pager;      // loads the full grid a page at a time
     private InventoryDatabase db;
-    private ExecutorService io;
+    private StockLedger ledger;
+    private Executor io;
+    private Executor writer;
     private Handler main;
+    private ItemSearch search;         // debounced, cancellable search-as-you-type
     private String currentQuery = "";
 
-    // Opens detail screen
-    private ActivityResultLauncher<Intent> openDetails;
-
-    @Override
-    public void onCreate(@Nullable Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-
-        openDetails = registerForActivityResult(
-                new ActivityResultContracts.StartActivityForResult(),
-                result -> {
-                    if (result.getResultCode() == AppCompatActivity.RESULT_OK) {
-                        loadItemsAsync();
-                    }
-                }
-        );
-    }
+    // Row changes from any screen, plus taps not written yet; patches what is
+    // shown instead of reloading
+    private final InventoryChangeFeed.Listener feedListener =
+            change -> main.post(() -> onItemChanged(ledger.overlay(change)));
 
     @Nullable
     @Override
@@ -62,50 +44,34 @@ public class InventoryFragment extends Fragment {
     public void onViewCreated(@NonNull View v, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(v, savedInstanceState);
 
-        db = new InventoryDatabase(requireContext());
-        io = Executors.newSingleThreadExecutor();
-        main = new Handler(Looper.getMainLooper());
+        // shared database, database thread and main handler
+        InventoryRepository repo = InventoryRepository.get(requireContext());
+        db = repo.db();
+        ledger = repo.ledger();
+        io = repo.io();
+        writer = repo.writer();
+        main = repo.main();
 
         productGrid = v.findViewById(R.id.productGrid);
-        productGrid.setLayoutManager(new GridLayoutManager(requireContext(), 2));
-        productGrid.setHasFixedSize(true);
-
-        final int space = (int) (12 * getResources().getDisplayMetrics().density);
-        productGrid.addItemDecoration(new RecyclerView.ItemDecoration() {
-            @Override
-            public void getItemOffsets(@NonNull Rect outRect, @NonNull View view,
-                                       @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
-                outRect.set(space, space, space, space);
-            }
-        });
 
         adapter = new InventoryCardAdapter(new InventoryCardAdapter.OnItemAction() {
             @Override
             public void onClick(Item item) {
-                Intent i = new Intent(requireContext(), ItemProductActivity.class);
-                i.putExtra("EXTRA_ID", item.id);
-                i.putExtra("EXTRA_NAME", item.name);
-                i.putExtra("EXTRA_SKU", item.sku);
-                i.putExtra("EXTRA_QTY", item.quantity);
-                i.putExtra("EXTRA_IMAGE", item.imageUrlOrPath);
-                i.putExtra("EXTRA_UPC", item.upc);
-                i.putExtra("EXTRA_DESCRIPTION", item.description);
-                openDetails.launch(i);
+                // edits there come back through the change feed
+                startActivity(ItemProductActivity.intentFor(requireContext(), item));
             }
 
             @Override
             public void onDecrease(Item item) {
-                updateQtyAsync(item.sku, -1);
+                updateQtyAsync(item, -1);
             }
         });
-        productGrid.setAdapter(adapter);
-
-        // Refresh after "Add Item" in MainActivity
-        getParentFragmentManager().setFragmentResultListener(
-                "refresh_inventory",
-                getViewLifecycleOwner(),
-                (reqKey, bundle) -> loadItemsAsync()
-        );
+        // 2-column grid on the shared card pool, images preloaded ahead of the scroll
+        InventoryGrid.attach(productGrid, adapter);
+        pager = new InventoryPager(db, io, main, adapter);
+        search = new ItemSearch(db, io, main, rows -> {
+            if (isAdded()) adapter.submitList(rows);
+        });
 
         //  Search text from MainActivity’s SearchView
         getParentFragmentManager().setFragmentResultListener(
@@ -117,118 +83,78 @@ public class InventoryFragment extends Fragment {
                 }
         );
 
-        seedIfEmptyThenLoad();
-    }
+        InventoryChangeFeed.addListener(feedListener);
 
-    @Override
-    public void onResume() {
-        super.onResume();
+        // draw last session's grid right away, while the database opens
+        repo.snapshot().readFirstAsync(InventoryPager.PAGE_SIZE, main, rows -> {
+            if (pager != null && currentQuery.isEmpty()) pager.showSnapshot(rows);
+            if (rows.isEmpty()) seedIfEmpty();
+        });
+        // load once; after that the feed keeps the grid current, so coming back
+        // from another screen doesn't re-query
         loadItemsAsync();
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (productGrid != null) productGrid.setAdapter(null);
-        if (io != null) io.shutdownNow();
+        InventoryChangeFeed.removeListener(feedListener);
+        if (pager != null) pager.release();
+        if (search != null) search.cancel();
+        if (productGrid != null) InventoryGrid.detach(productGrid);   // cards go back to the pool
     }
 
-    private void seedIfEmptyThenLoad() {
-        io.execute(() -> {
+    // Add sample items on a fresh install. Only runs when there was no snapshot;
+    // the inserts come back through the change feed, so no reload is needed.
+    private void seedIfEmpty() {
+        writer.execute(() -> {
             boolean empty;
-            try (Cursor c = db.listAllItems()) {
+            // one-row page is enough to know if the table is empty
+            try (Cursor c = db.listItemsPage(null, 0, 1)) {
                 empty = (c == null || !c.moveToFirst());
             }
             if (empty) {
                 db.createItem("Blue Widget",  "012345678905", "BW-100", "Standard blue widget", 25);
                 db.createItem("Green Widget", "012345678912", "GW-200", "Green widget deluxe", 10);
             }
-            loadItemsAsync();
         });
     }
 
-    // Chooses list-all or name-search based on currentQuery
+    // Chooses the paged grid or name-search based on currentQuery (main thread)
     private void loadItemsAsync() {
-        final String q = currentQuery; // capture for background thread
-        io.execute(() -> {
-            List<Item> items = (q == null || q.trim().isEmpty())
-                    ? queryAllItems()
-                    : queryItemsByName(q.trim());
-            postSubmit(items);
-        });
-    }
-
-    private void updateQtyAsync(String sku, int delta) {
-        io.execute(() -> {
-            db.adjustQuantityBySku(sku, delta);
-            List<Item> items = (currentQuery == null || currentQuery.trim().isEmpty())
-                    ? queryAllItems()
-                    : queryItemsByName(currentQuery.trim());
-            postSubmit(items);
-        });
-    }
-
-    private void postSubmit(List<Item> items) {
-        if (!isAdded()) return;
-        main.post(() -> {
-            if (!isAdded()) return;
-            adapter.submitList(items);
-        });
+        if (!isAdded() || pager == null) return;
+        final String q = currentQuery == null ? "" : currentQuery.trim();
+        if (q.isEmpty()) {
+            // full grid: first page now, more as the user scrolls
+            search.cancel();
+            adapter.setOnNearEnd(pager);
+            pager.refresh();
+            return;
+        }
+        adapter.setOnNearEnd(null);
+        pager.setActive(false);
+        search.submit(q);
     }
 
-    private List<Item> queryAllItems() {
-        ArrayList<Item> list = new ArrayList<>();
-        try (Cursor c = db.listAllItems()) {
-            if (c != null) {
-                int iId   = c.getColumnIndexOrThrow("_id");
-                int iName = c.getColumnIndexOrThrow("name");
-                int iUpc  = c.getColumnIndexOrThrow("upc");
-                int iSku  = c.getColumnIndexOrThrow("sku");
-                int iDesc = c.getColumnIndexOrThrow("short_description");
-                int iQty  = c.getColumnIndexOrThrow("quantity");
-
-                while (c.moveToNext()) {
-                    list.add(new Item(
-                            c.getLong(iId),
-                            c.getString(iName),
-                            null,
-                            c.getString(iSku),
-                            c.getInt(iQty),
-                            c.getString(iUpc),
-                            c.getString(iDesc)
-                    ));
-                }
-            }
-        }
-        return list;
+    // Shown now; the ledger merges repeats into one write and the change feed
+    // brings back the committed row
+    private void updateQtyAsync(Item item, int delta) {
+        ledger.record(item.sku, delta, StockLedger.REASON_ADJUST);
+        onItemChanged(new ItemChange(ItemChange.Type.UPDATE,
+                item.withQuantity(Math.max(0, item.quantity + delta))));
     }
 
-    // Builds list from db.listItemsByName(query)
-    private List<Item> queryItemsByName(String query) {
-        ArrayList<Item> list = new ArrayList<>();
-        try (Cursor c = db.listItemsByName(query)) {
-            if (c != null) {
-                int iId   = c.getColumnIndexOrThrow("_id");
-                int iName = c.getColumnIndexOrThrow("name");
-                int iUpc  = c.getColumnIndexOrThrow("upc");
-                int iSku  = c.getColumnIndexOrThrow("sku");
-                int iDesc = c.getColumnIndexOrThrow("short_description");
-                int iQty  = c.getColumnIndexOrThrow("quantity");
-
-                while (c.moveToNext()) {
-                    list.add(new Item(
-                            c.getLong(iId),
-                            c.getString(iName),
-                            null,
-                            c.getString(iSku),
-                            c.getInt(iQty),
-                            c.getString(iUpc),
-                            c.getString(iDesc)
-                    ));
-                }
-            }
+    // Patch the grid or the search results with one row change (main thread)
+    private void onItemChanged(ItemChange change) {
+        if (!isAdded() || pager == null) return;
+        boolean searching = currentQuery != null && !currentQuery.trim().isEmpty();
+        if (!searching) {
+            pager.apply(change);
+        } else if (change.type == ItemChange.Type.RELOAD) {
+            loadItemsAsync();
+        } else {
+            search.apply(change);
         }
-        return list;
     }
 
     private static String safe(String s) {
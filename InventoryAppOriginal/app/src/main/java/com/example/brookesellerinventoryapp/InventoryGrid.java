@@ -0,0 +1,142 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.Looper;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The 2-column product card grid, set up the same way on every screen that shows one.
+ *
+ * All grids share one RecycledViewPool, so cards a closed screen hands back are
+ * reused by the next one instead of inflated again. Cards are inflated against
+ * the application context (themed like the app), so a pooled card never holds
+ * on to the activity that first showed it.
+ *
+ * A few spare cards are inflated ahead of time on a background thread, and
+ * GridImagePreloader fetches thumbnails for the rows just past the screen.
+ */
+public final class InventoryGrid {
+
+    private static final String TAG = "InventoryGrid";
+    static final int SPAN = 2;
+    private static final int SPACE_DP = 12;
+    private static final int CARD_MARGIN_DP = 8;     // layout_margin in item_inventory_card
+    // cards the shared pool keeps: a few screens' worth
+    private static final int POOLED_CARDS = 40;
+    // cards inflated ahead of time, waiting for onCreateViewHolder
+    private static final int SPARE_CARDS = 12;
+
+    // every grid's cards, made on first attach (main thread only)
+    private static RecyclerView.RecycledViewPool pool;
+
+    private static final ConcurrentLinkedQueue<View> spares = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean inflating = new AtomicBoolean(false);
+    private static volatile Context cardContext;
+    private static ExecutorService inflater;
+
+    private InventoryGrid() {}
+
+    /** Give the grid its layout, spacing, the shared card pool, the preloader and the adapter (main thread). */
+    public static void attach(RecyclerView grid, InventoryCardAdapter adapter) {
+        Context ctx = grid.getContext();
+        if (pool == null) {
+            pool = new RecyclerView.RecycledViewPool();
+            pool.setMaxRecycledViews(InventoryCardAdapter.VIEW_TYPE_CARD, POOLED_CARDS);
+        }
+        grid.setLayoutManager(new GridLayoutManager(ctx, SPAN));
+        grid.setHasFixedSize(true);
+        grid.setRecycledViewPool(pool);
+
+        final float density = ctx.getResources().getDisplayMetrics().density;
+        final int space = (int) (SPACE_DP * density);
+        grid.addItemDecoration(new RecyclerView.ItemDecoration() {
+            @Override
+            public void getItemOffsets(@NonNull Rect outRect, @NonNull View view,
+                                       @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+                outRect.set(space, space, space, space);
+            }
+        });
+
+        // decode images at the size the card shows them: square, one column wide
+        // less the spacing and the card's own 8dp margin
+        int screen = ctx.getResources().getDisplayMetrics().widthPixels;
+        int imagePx = Math.max(1, screen / SPAN - 2 * (space + (int) (CARD_MARGIN_DP * density)));
+        adapter.setImageSize(imagePx);
+        // swap, not set: setAdapter empties a shared pool no other grid is using,
+        // which is exactly the case when one screen replaces another
+        grid.swapAdapter(adapter, true);
+        grid.addOnScrollListener(new GridImagePreloader(adapter));
+        prewarm(ctx);
+    }
+
+    /** Hand the grid's cards back to the shared pool (call when the screen goes away). */
+    public static void detach(RecyclerView grid) {
+        grid.clearOnScrollListeners();
+        // recycles every card into the pool for the next grid (and keeps the pool)
+        grid.swapAdapter(null, true);
+    }
+
+    /** Top up the spare cards on a background thread (any thread). */
+    public static void prewarm(Context context) {
+        if (spares.size() >= SPARE_CARDS || !inflating.compareAndSet(false, true)) return;
+        Context ctx = cardContext(context);
+        synchronized (InventoryGrid.class) {
+            if (inflater == null) {
+                inflater = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "card-inflate");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+        inflater.execute(() -> {
+            try {
+                LayoutInflater li = LayoutInflater.from(ctx);
+                // a throwaway parent, only so the card gets its layout params
+                FrameLayout parent = new FrameLayout(ctx);
+                while (spares.size() < SPARE_CARDS) {
+                    spares.add(li.inflate(R.layout.item_inventory_card, parent, false));
+                }
+            } catch (RuntimeException e) {
+                // some view refused to be built off the main thread; cards inflate on demand instead
+                Log.w(TAG, "card pre-inflation failed", e);
+            } finally {
+                inflating.set(false);
+            }
+        });
+    }
+
+    // A spare card if one is ready, else inflate one now (main thread, from onCreateViewHolder)
+    static View obtainCard(ViewGroup parent) {
+        View v = spares.poll();
+        if (v != null) return v;
+        if (Looper.myLooper() == Looper.getMainLooper()) prewarm(parent.getContext());
+        return LayoutInflater.from(cardContext(parent.getContext()))
+                .inflate(R.layout.item_inventory_card, parent, false);
+    }
+
+    // Application context with the app theme; what every card is inflated against
+    private static Context cardContext(Context any) {
+        Context c = cardContext;
+        if (c == null) {
+            c = new ContextThemeWrapper(any.getApplicationContext(), R.style.Theme_BrookeSellerInventoryApp);
+            cardContext = c;
+        }
+        return c;
+    }
+}
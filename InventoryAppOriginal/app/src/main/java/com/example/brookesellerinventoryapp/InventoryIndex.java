@@ -0,0 +1,295 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+
+/**
+ * In-memory key map of the items table for point lookups.
+ * It holds no rows, only each row's id, version and the hash codes of its SKU
+ * and UPC, in parallel primitive arrays (one offset per row). Three
+ * open-addressing tables map SKU, UPC and id to an offset. Each table is a
+ * plain int[] (offset + 1, 0 means empty), so there are no boxed keys, map
+ * entries or Item objects per row: about 50 bytes a row, whatever the text.
+ *
+ * A lookup finds the id in memory, then reads that one row by primary key.
+ * A key that isn't in the table is answered without touching disk. Two keys
+ * can share a hash code, so the row read is checked against the key, and a
+ * mismatch falls back to a query by the key itself.
+ *
+ * InventoryDatabase keeps it coherent: every committed write is applied here
+ * before it goes out on the change feed. It is built on first use and thrown
+ * away when a bulk write (like a CSV import) makes row-by-row updates pointless.
+ *
+ * The maps are synchronized; row reads happen outside the lock.
+ */
+final class InventoryIndex {
+
+    // Receives each row's keys while the index is built
+    interface KeySink {
+        void row(long id, String sku, String upc, long version);
+    }
+
+    // Where keys and rows come from; all run on the calling thread
+    interface Source {
+        // Every row's keys (no text beyond SKU and UPC), for building the index
+        void loadKeys(KeySink sink);
+
+        @Nullable Item readById(long id);
+        @Nullable Item readBySku(String sku);
+        @Nullable Item readByUpc(String upc);
+    }
+
+    private final Source source;
+    private boolean loaded = false;
+
+    // One entry per offset; offsets of removed rows are reused first
+    private long[] ids = new long[16];
+    private long[] versions = new long[16];
+    private int[] skuHashes = new int[16];
+    private int[] upcHashes = new int[16];
+    private int rowCount = 0;               // offsets [0..rowCount) used, some may be free
+    private int[] free = new int[16];
+    private int freeCount = 0;
+
+    private final Table bySku = new Table() {
+        @Override int hashAt(int offset) { return skuHashes[offset]; }
+    };
+    private final Table byUpc = new Table() {
+        @Override int hashAt(int offset) { return upcHashes[offset]; }
+    };
+    private final Table byId = new Table() {
+        @Override int hashAt(int offset) { return Long.hashCode(ids[offset]); }
+    };
+
+    InventoryIndex(Source source) {
+        this.source = source;
+    }
+
+    // ---------------- Lookups ----------------
+
+    @Nullable
+    Item findBySku(String sku) {
+        long id = idFor(bySku, sku.hashCode());
+        if (id < 0) return null;
+        Item it = source.readById(id);
+        if (it != null && sku.equals(it.sku)) return it;
+        // another SKU with the same hash code: ask the table by SKU
+        return source.readBySku(sku);
+    }
+
+    @Nullable
+    Item findByUpc(String upc) {
+        long id = idFor(byUpc, upc.hashCode());
+        if (id < 0) return null;
+        Item it = source.readById(id);
+        if (it != null && upc.equals(it.upc)) return it;
+        return source.readByUpc(upc);
+    }
+
+    @Nullable
+    Item findById(long id) {
+        synchronized (this) {
+            ensureLoaded();
+            if (offsetOf(id) < 0) return null;
+        }
+        return source.readById(id);
+    }
+
+    // Build now if needed (call off the main thread to warm up)
+    synchronized void warm() {
+        ensureLoaded();
+    }
+
+    // Id of the first row whose key has this hash code, or -1 if none does
+    private synchronized long idFor(Table table, int hash) {
+        ensureLoaded();
+        int[] t = table.slots;
+        int mask = t.length - 1;
+        for (int i = mix(hash) & mask; t[i] != 0; i = (i + 1) & mask) {
+            int at = t[i] - 1;
+            if (table.hashAt(at) == hash) return ids[at];
+        }
+        return -1;
+    }
+
+    // ---------------- Write-through ----------------
+
+    /**
+     * Apply one committed change. Does nothing until the index is built,
+     * since the build will read the change from the table anyway.
+     */
+    synchronized void apply(ItemChange change) {
+        if (change.type == ItemChange.Type.RELOAD) {
+            invalidate();
+            return;
+        }
+        if (!loaded || change.item == null) return;
+        Item it = change.item;
+        int at = offsetOf(it.id);
+        if (change.type == ItemChange.Type.DELETE) {
+            if (at >= 0) remove(at);
+            return;
+        }
+        if (at >= 0) {
+            // two writers can publish out of order; the higher version wins
+            if (versions[at] > it.version) return;
+            // a row read without its upc can't have moved keys; keep the old ones
+            if (it.upc == null) {
+                versions[at] = it.version;
+                return;
+            }
+            remove(at);
+        }
+        if (it.sku == null || it.upc == null) return;
+        add(it.id, it.sku, it.upc, it.version);
+    }
+
+    // Drop everything; the next lookup rebuilds from the table
+    synchronized void invalidate() {
+        loaded = false;
+        ids = new long[16];
+        versions = new long[16];
+        skuHashes = new int[16];
+        upcHashes = new int[16];
+        rowCount = 0;
+        freeCount = 0;
+        bySku.clear(32);
+        byUpc.clear(32);
+        byId.clear(32);
+    }
+
+    // ---------------- Internals ----------------
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        invalidate();
+        source.loadKeys(this::add);
+        loaded = true;
+    }
+
+    private int offsetOf(long id) {
+        int[] t = byId.slots;
+        int mask = t.length - 1;
+        for (int i = mix(Long.hashCode(id)) & mask; t[i] != 0; i = (i + 1) & mask) {
+            if (ids[t[i] - 1] == id) return t[i] - 1;
+        }
+        return -1;
+    }
+
+    private void add(long id, String sku, String upc, long version) {
+        int at;
+        if (freeCount > 0) {
+            at = free[--freeCount];
+        } else {
+            if (rowCount == ids.length) grow(ids.length * 2);
+            at = rowCount++;
+        }
+        ids[at] = id;
+        versions[at] = version;
+        skuHashes[at] = sku.hashCode();
+        upcHashes[at] = upc.hashCode();
+        bySku.put(at);
+        byUpc.put(at);
+        byId.put(at);
+    }
+
+    private void remove(int at) {
+        bySku.remove(at);
+        byUpc.remove(at);
+        byId.remove(at);
+        if (freeCount == free.length) {
+            int[] bigger = new int[free.length * 2];
+            System.arraycopy(free, 0, bigger, 0, freeCount);
+            free = bigger;
+        }
+        free[freeCount++] = at;
+    }
+
+    private void grow(int capacity) {
+        long[] i = new long[capacity];
+        System.arraycopy(ids, 0, i, 0, rowCount);
+        ids = i;
+        long[] v = new long[capacity];
+        System.arraycopy(versions, 0, v, 0, rowCount);
+        versions = v;
+        int[] s = new int[capacity];
+        System.arraycopy(skuHashes, 0, s, 0, rowCount);
+        skuHashes = s;
+        int[] u = new int[capacity];
+        System.arraycopy(upcHashes, 0, u, 0, rowCount);
+        upcHashes = u;
+    }
+
+    // Spread the bits so sequential ids and similar SKUs don't cluster
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Open-addressing table of row offsets with linear probing.
+     * Stores offset + 1 so 0 can mean empty. Kept at most half full.
+     */
+    private abstract class Table {
+        int[] slots = new int[32];
+        int size = 0;
+
+        // Hash of this table's key for the row at offset
+        abstract int hashAt(int offset);
+
+        void put(int offset) {
+            if ((size + 1) * 2 > slots.length) resize(slots.length * 2);
+            int mask = slots.length - 1;
+            int i = mix(hashAt(offset)) & mask;
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = offset + 1;
+            size++;
+        }
+
+        void remove(int offset) {
+            int mask = slots.length - 1;
+            int i = mix(hashAt(offset)) & mask;
+            while (slots[i] != offset + 1) {
+                if (slots[i] == 0) return;
+                i = (i + 1) & mask;
+            }
+            // backward-shift delete: pull later entries of the probe run into the gap
+            int gap = i;
+            for (int j = (gap + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+                int home = mix(hashAt(slots[j] - 1)) & mask;
+                // move j into gap unless its home lies between gap and j (cyclically)
+                boolean stays = gap <= j ? (gap < home && home <= j) : (gap < home || home <= j);
+                if (!stays) {
+                    slots[gap] = slots[j];
+                    gap = j;
+                }
+            }
+            slots[gap] = 0;
+            size--;
+        }
+
+        void resize(int capacity) {
+            int[] old = slots;
+            slots = new int[powerOfTwo(capacity)];
+            size = 0;
+            int mask = slots.length - 1;
+            for (int s : old) {
+                if (s == 0) continue;
+                int i = mix(hashAt(s - 1)) & mask;
+                while (slots[i] != 0) i = (i + 1) & mask;
+                slots[i] = s;
+                size++;
+            }
+        }
+
+        void clear(int capacity) {
+            slots = new int[powerOfTwo(capacity)];
+            size = 0;
+        }
+
+        private int powerOfTwo(int capacity) {
+            int cap = 32;
+            while (cap < capacity) cap <<= 1;
+            return cap;
+        }
+    }
+}
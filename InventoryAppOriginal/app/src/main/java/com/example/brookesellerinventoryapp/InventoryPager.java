@@ -0,0 +1,172 @@
+package com.example.brookesellerinventoryapp;
+
+import android.database.Cursor;
+import android.os.Handler;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads the inventory grid a page at a time with keyset paging.
+ * The adapter calls loadMore() when a card near the end is bound, so pages
+ * load as the grid scrolls and the first cards show after one small query.
+ *
+ * All state lives on the main thread; queries run on the given executor.
+ */
+public class InventoryPager implements InventoryCardAdapter.OnNearEnd {
+
+    // Rows per page: a few screens of 2-column cards
+    public static final int PAGE_SIZE = 60;
+
+    private final InventoryDatabase db;
+    private final Executor io;
+    private final Handler main;
+    private final InventoryCardAdapter adapter;
+
+    private final ArrayList<Item> loaded = new ArrayList<>(); // rows shown so far
+    private boolean loading = false;
+    private boolean endReached = false;
+    private boolean firstPageShown = false; // real rows have replaced the snapshot
+    private boolean active = true;       // false while another list (like search) is shown
+    private int generation = 0;          // bumps on refresh so old page loads are dropped
+    // changes that raced a load; applied to its rows once it lands
+    private final ArrayList<ItemChange> changedWhileLoading = new ArrayList<>();
+    private boolean reloadWhileLoading = false;  // a bulk change raced a load; refresh after it
+
+    public InventoryPager(InventoryDatabase db, Executor io, Handler main,
+                          InventoryCardAdapter adapter) {
+        this.db = db;
+        this.io = io;
+        this.main = main;
+        this.adapter = adapter;
+    }
+
+    // Turn paging on/off. When off, loadMore() does nothing.
+    public void setActive(boolean active) {
+        this.active = active;
+        if (!active) {
+            generation++;
+            // the load in flight is dropped, and these with it
+            changedWhileLoading.clear();
+            reloadWhileLoading = false;
+        }
+    }
+
+    /**
+     * Reload from the top. Keeps as many rows as are already loaded so the
+     * grid doesn't jump back when something changes.
+     */
+    public void refresh() {
+        active = true;
+        final int gen = ++generation;
+        final int limit = Math.max(PAGE_SIZE, loaded.size());
+        // unchanged rows come back as the same objects, so the diff skips them
+        final List<Item> previous = new ArrayList<>(loaded);
+        loading = true;
+        // this read covers every change so far, including a raced bulk one
+        reloadWhileLoading = false;
+        io.execute(() -> {
+            List<Item> page = readPage(null, 0, limit, InventoryDatabase.byId(previous));
+            main.post(() -> {
+                if (gen != generation) return;
+                loaded.clear();
+                loaded.addAll(page);
+                endReached = page.size() < limit;
+                loading = false;
+                firstPageShown = true;
+                applyChangedWhileLoading();
+                adapter.submitList(new ArrayList<>(loaded));
+            });
+        });
+    }
+
+    // Load the next page after the last loaded row
+    public void loadMore() {
+        if (!active || loading || endReached) return;
+        if (loaded.isEmpty()) {
+            refresh();
+            return;
+        }
+        final Item last = loaded.get(loaded.size() - 1);
+        final int gen = generation;
+        loading = true;
+        io.execute(() -> {
+            List<Item> page = readPage(last.name, last.id, PAGE_SIZE, null);
+            main.post(() -> {
+                if (gen != generation) return;
+                loaded.addAll(page);
+                endReached = page.size() < PAGE_SIZE;
+                loading = false;
+                applyChangedWhileLoading();
+                adapter.submitList(new ArrayList<>(loaded));
+            });
+        });
+    }
+
+    /**
+     * Show rows from the warm-start snapshot until the first real page arrives.
+     * The refresh that follows replaces them and DiffUtil only rebinds what changed.
+     */
+    public void showSnapshot(List<Item> rows) {
+        if (!active || firstPageShown || rows.isEmpty()) return;
+        adapter.submitList(rows);
+    }
+
+    /**
+     * Patch the loaded rows with one committed change (main thread).
+     * A quantity change swaps one row; no query runs.
+     */
+    public void apply(ItemChange change) {
+        if (!active) return;
+        if (change.type == ItemChange.Type.RELOAD) {
+            if (loading) reloadWhileLoading = true;
+            else refresh();
+            return;
+        }
+        if (loading) {
+            // the query in flight may or may not include this change; applying it
+            // again once the rows land gives the same result either way
+            changedWhileLoading.add(change);
+            return;
+        }
+        if (SortedItems.apply(loaded, change, SortedItems.BY_NAME_THEN_ID, null, endReached)) {
+            adapter.submitList(new ArrayList<>(loaded));
+        }
+    }
+
+    // Replay raced changes on the rows just loaded, in the order they were published
+    // (main thread). A raced bulk change reloads instead; that load keeps the rows shown.
+    private void applyChangedWhileLoading() {
+        for (ItemChange c : changedWhileLoading) {
+            SortedItems.apply(loaded, c, SortedItems.BY_NAME_THEN_ID, null, endReached);
+        }
+        changedWhileLoading.clear();
+        if (reloadWhileLoading) {
+            reloadWhileLoading = false;
+            refresh();
+        }
+    }
+
+    // Stop delivering results (call when the view goes away)
+    public void release() {
+        active = false;
+        generation++;
+    }
+
+    @Override
+    public void onNearEnd() {
+        loadMore();
+    }
+
+    // Runs on the io thread
+    private List<Item> readPage(@Nullable String afterName, long afterId, int limit,
+                                @Nullable Map<Long, Item> reuse) {
+        try (Cursor c = db.listItemsPage(afterName, afterId, limit)) {
+            return InventoryDatabase.readItems(c, reuse);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One inventory database for the whole app, with two kinds of thread:
+ *
+ * - io(): a small pool for reads. The database runs in WAL mode, so each
+ *   reader gets its own pooled connection and a long listAllItems() never
+ *   waits for a write, or holds one up.
+ * - writer(): one thread for every write, so writes like adjustQuantityBySku
+ *   still run one at a time and in order.
+ *
+ * Lives as long as the process, not any activity, so screens never shut it down.
+ */
+public final class InventoryRepository {
+
+    private static volatile InventoryRepository instance;
+
+    private final InventoryDatabase db;
+    private final GridSnapshot snapshot;
+    private final SmsOutbox smsOutbox;
+    private final StockLedger ledger;
+    private final ItemImageStore images;
+    // Android keeps a few connections per WAL database: one for the writer, the
+    // rest for readers. One reader thread per reader connection, so none queue for one.
+    private static final int READERS = 3;
+
+    private final ExecutorService io;
+    private final ExecutorService writer;
+    private final Handler main = new Handler(Looper.getMainLooper());
+
+    private InventoryRepository(Context appContext) {
+        db = new InventoryDatabase(appContext);
+        AtomicInteger readerNo = new AtomicInteger();
+        io = Executors.newFixedThreadPool(READERS, r -> {
+            Thread t = new Thread(r, "inventory-read-" + readerNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "inventory-write");
+            t.setDaemon(true);
+            return t;
+        });
+        // ledger rows are stamped with whoever is signed in
+        SharedPreferences session = appContext.getSharedPreferences("auth_session", Context.MODE_PRIVATE);
+        db.setUserSource(() -> session.getString("username", null));
+        ledger = new StockLedger(db, writer, main,
+                appContext.getSharedPreferences("stock_ledger", Context.MODE_PRIVATE));
+        snapshot = new GridSnapshot(appContext.getFilesDir(), db);
+        images = new ItemImageStore(appContext.getContentResolver(), appContext.getFilesDir());
+        InventoryChangeFeed.addListener(snapshot);
+        ScheduledExecutorService smsWorker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sms-outbox");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        smsOutbox = new SmsOutbox(db.smsOutboxStore(), new SmsManagerTransport(appContext),
+                smsWorker, System::currentTimeMillis);
+        // stock alerts come from any screen's writes, so they're wired here
+        InventoryChangeFeed.addLowStockListener(new StockAlertDispatcher(appContext, smsOutbox));
+    }
+
+    // Get the shared repository (made on first use)
+    public static InventoryRepository get(Context context) {
+        InventoryRepository r = instance;
+        if (r == null) {
+            synchronized (InventoryRepository.class) {
+                r = instance;
+                if (r == null) {
+                    r = new InventoryRepository(context.getApplicationContext());
+                    instance = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    // The one database helper
+    public InventoryDatabase db() {
+        return db;
+    }
+
+    // Warm-start copy of the grid, kept up to date from the change feed
+    public GridSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // Queued SMS alerts, sent from their own thread
+    public SmsOutbox smsOutbox() {
+        return smsOutbox;
+    }
+
+    // Group-committed quantity changes and their history
+    public StockLedger ledger() {
+        return ledger;
+    }
+
+    // Item photos and their grid thumbnails
+    public ItemImageStore images() {
+        return images;
+    }
+
+    // Reader pool; queue reads here (they may run in parallel)
+    public Executor io() {
+        return io;
+    }
+
+    // The one writer thread; queue every insert, update and delete here
+    public Executor writer() {
+        return writer;
+    }
+
+    // Main-thread handler for posting results
+    public Handler main() {
+        return main;
+    }
+
+    // Open the database file and build the lookup index early, off the main thread
+    void warmUp() {
+        writer.execute(() -> {
+            db.getWritableDatabase();
+            ledger.compactIfDue();
+        });
+        io.execute(db::warmIndex);
+        // photos no item points at any more (replaced or deleted)
+        io.execute(() -> images.pruneAsync(db.listImageKeys()));
+        snapshot.rewriteIfMissing();
+        // anything left from the last run
+        smsOutbox.kick();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.room.Database;
+import androidx.room.RoomDatabase;
+
+/**
+ * Room database behind InventoryDatabase (file inventory.db).
+ * The full-text table, its triggers, the stats triggers, the quantity >= 0 guard
+ * and the partial zero-stock and low-stock indexes aren't Room entities;
+ * InventoryDatabase adds them when the file opens.
+ */
+@Database(entities = { ItemEntity.class, InventoryStatsEntity.class, SmsOutboxEntity.class,
+        StockMovementEntity.class, CycleCountSessionEntity.class, CycleCountLineEntity.class },
+        version = InventoryDatabase.VERSION, exportSchema = false)
+public abstract class InventoryRoomDatabase extends RoomDatabase {
+    public abstract ItemDao items();
+
+    public abstract SmsOutboxDao smsOutbox();
+}
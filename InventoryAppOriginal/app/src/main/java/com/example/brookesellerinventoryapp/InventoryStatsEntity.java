@@ -0,0 +1,26 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Room entity for the one-row inventory_stats rollup.
+ * Nothing writes it from Java; triggers on items keep it current.
+ */
+@Entity(tableName = InventoryDatabase.StatsTable.TABLE)
+public class InventoryStatsEntity {
+
+    @PrimaryKey
+    @ColumnInfo(name = InventoryDatabase.StatsTable.COL_ID)
+    public long id;                 // always 1
+
+    @ColumnInfo(name = InventoryDatabase.StatsTable.COL_SKUS)
+    public long skuCount;
+
+    @ColumnInfo(name = InventoryDatabase.StatsTable.COL_UNITS)
+    public long unitCount;
+
+    @ColumnInfo(name = InventoryDatabase.StatsTable.COL_ZERO)
+    public long zeroCount;
+}
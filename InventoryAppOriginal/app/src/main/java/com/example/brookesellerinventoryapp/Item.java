@@ -4,11 +4,14 @@ package com.example.brookesellerinventoryapp;
 public class Item {
     public final long   id;
     public final String name;
-    public final String imageUrlOrPath;   // can be null
+    public final String imageUrlOrPath;   // ItemImageStore key (or a URL/path); can be null
     public final String sku;
     public final int    quantity;
     public final String upc;              // can be null
     public final String description;      // can be null
+    public final long   version;          // row version, for compare-and-set edits
+    public final int    reorderPoint;     // low stock below this; 0 means no alert
+    public final long   updatedSeq;       // database-wide stamp of the last write; -1 = not read from the table
 
     public Item(long id,
                 String name,
@@ -17,6 +20,42 @@ public class Item {
                 int quantity,
                 String upc,
                 String description) {
+        this(id, name, imageUrlOrPath, sku, quantity, upc, description, 0);
+    }
+
+    public Item(long id,
+                String name,
+                String imageUrlOrPath,
+                String sku,
+                int quantity,
+                String upc,
+                String description,
+                long version) {
+        this(id, name, imageUrlOrPath, sku, quantity, upc, description, version, 0);
+    }
+
+    public Item(long id,
+                String name,
+                String imageUrlOrPath,
+                String sku,
+                int quantity,
+                String upc,
+                String description,
+                long version,
+                int reorderPoint) {
+        this(id, name, imageUrlOrPath, sku, quantity, upc, description, version, reorderPoint, -1);
+    }
+
+    public Item(long id,
+                String name,
+                String imageUrlOrPath,
+                String sku,
+                int quantity,
+                String upc,
+                String description,
+                long version,
+                int reorderPoint,
+                long updatedSeq) {
         this.id = id;
         this.name = name;
         this.imageUrlOrPath = imageUrlOrPath;
@@ -24,5 +63,14 @@ public class Item {
         this.quantity = quantity;
         this.upc = upc;
         this.description = description;
+        this.version = version;
+        this.reorderPoint = reorderPoint;
+        this.updatedSeq = updatedSeq;
+    }
+
+    // Same row with another quantity (to show a change before it's written).
+    // Not a stored row, so it has no stamp.
+    public Item withQuantity(int q) {
+        return new Item(id, name, imageUrlOrPath, sku, q, upc, description, version, reorderPoint);
     }
 }
@@ -0,0 +1,67 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small LRU of full rows by id, for screens that open one item again and again
+ * (the detail screen reads its row on every open). Misses are read by primary
+ * key through the index.
+ *
+ * InventoryDatabase applies every committed change here, like it does for the
+ * index. A read that raced a change isn't cached, since it may be the older row.
+ */
+final class ItemCache {
+
+    private final int maxRows;
+    private final LinkedHashMap<Long, Item> rows;
+    // bumps on every change; a read started before a bump isn't kept
+    private long changes = 0;
+
+    ItemCache(int maxRows) {
+        this.maxRows = maxRows;
+        // access order, so the eldest entry is the least recently used
+        this.rows = new LinkedHashMap<Long, Item>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Item> eldest) {
+                return size() > ItemCache.this.maxRows;
+            }
+        };
+    }
+
+    @Nullable
+    synchronized Item get(long id) {
+        return rows.get(id);
+    }
+
+    // Take before reading a row; hand it back to put()
+    synchronized long stamp() {
+        return changes;
+    }
+
+    // Keep a row read by id, unless a change landed since stamp()
+    synchronized void put(Item it, long stamp) {
+        if (stamp == changes) rows.put(it.id, it);
+    }
+
+    // Apply one committed change
+    synchronized void apply(ItemChange change) {
+        changes++;
+        if (change.type == ItemChange.Type.RELOAD) {
+            rows.clear();
+            return;
+        }
+        Item it = change.item;
+        if (it == null) return;
+        // only full rows are kept; a lean one just drops the old copy
+        if (change.type == ItemChange.Type.DELETE || it.upc == null) {
+            rows.remove(it.id);
+        } else {
+            // two writers can publish out of order; the higher version wins
+            Item old = rows.get(it.id);
+            if (old != null && old.version <= it.version) rows.put(it.id, it);
+        }
+    }
+}
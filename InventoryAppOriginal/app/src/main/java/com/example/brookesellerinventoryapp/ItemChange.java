@@ -0,0 +1,25 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+
+// One committed change to the items table, as published by InventoryDatabase.
+public final class ItemChange {
+
+    public enum Type {
+        INSERT,   // item is the new row
+        UPDATE,   // item is the row after the change
+        DELETE,   // item is the row as it was before it was removed
+        RELOAD    // many rows changed at once (like an import); item is null
+    }
+
+    public final Type type;
+    @Nullable public final Item item;
+
+    public ItemChange(Type type, @Nullable Item item) {
+        this.type = type;
+        this.item = item;
+    }
+
+    // Shared instance for bulk changes
+    public static final ItemChange RELOAD = new ItemChange(Type.RELOAD, null);
+}
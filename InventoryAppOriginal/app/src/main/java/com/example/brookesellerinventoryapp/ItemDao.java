@@ -0,0 +1,69 @@
+package com.example.brookesellerinventoryapp;
+
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+/**
+ * Room queries for the items table, checked against ItemEntity at compile time.
+ * Item reads return a Cursor so every query maps rows the same way
+ * (InventoryDatabase.readItems). Full-text search, RETURNING updates and keyset
+ * paging stay as SQL in InventoryDatabase because Room can't express them.
+ */
+@Dao
+public interface ItemDao {
+
+    // Columns every item read returns (what readItems expects)
+    String ITEM_COLUMNS = "_id, name, upc, sku, short_description, quantity, version, reorder_point, updated_seq, image_key";
+    // What a card needs; no upc or description, which lists never show
+    String GRID_COLUMNS = "_id, name, sku, quantity, version, reorder_point, updated_seq, image_key";
+
+    // -1 if the sku or upc is already taken
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insert(ItemEntity item);
+
+    @Query("SELECT " + ITEM_COLUMNS + " FROM items WHERE sku = :sku")
+    Cursor getBySku(String sku);
+
+    @Query("SELECT " + ITEM_COLUMNS + " FROM items WHERE upc = :upc")
+    Cursor getByUpc(String upc);
+
+    @Query("SELECT " + ITEM_COLUMNS + " FROM items WHERE _id = :id")
+    Cursor getById(long id);
+
+    @Query("SELECT " + GRID_COLUMNS + " FROM items ORDER BY name ASC")
+    Cursor listAll();
+
+    // Just the keys, no ORDER BY: for building the in-memory index
+    @Query("SELECT _id, sku, upc, version FROM items")
+    Cursor loadKeys();
+
+    // Walks idx_items_zero (partial index), no scan or sort
+    @Query("SELECT " + GRID_COLUMNS + " FROM items WHERE quantity = 0"
+            + " ORDER BY name COLLATE NOCASE ASC, _id ASC")
+    Cursor listZeroQty();
+
+    // Walks idx_items_low (partial index on quantity < reorder_point)
+    @Query("SELECT " + GRID_COLUMNS + " FROM items WHERE quantity < reorder_point"
+            + " ORDER BY name COLLATE NOCASE ASC, _id ASC")
+    Cursor listLowStock();
+
+    // Just what the grid snapshot stores: the first rows in grid order
+    @Query("SELECT _id, name, sku, quantity FROM items ORDER BY name ASC, _id ASC LIMIT :limit")
+    Cursor listGridRows(int limit);
+
+    @Nullable
+    @Query("SELECT sku_count AS skuCount, unit_count AS unitCount, zero_count AS zeroCount"
+            + " FROM inventory_stats WHERE id = 1")
+    InventoryDatabase.Stats stats();
+
+    @Query("DELETE FROM items WHERE _id = :id")
+    int deleteById(long id);
+
+    @Query("DELETE FROM items WHERE sku = :sku")
+    int deleteBySku(String sku);
+}
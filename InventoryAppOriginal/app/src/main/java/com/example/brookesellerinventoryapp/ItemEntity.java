@@ -0,0 +1,60 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Room entity for the items table. Screens work with Item; this class only
+ * describes the table so Room can create it and check DAO queries at compile time.
+ */
+@Entity(tableName = InventoryDatabase.ItemsTable.TABLE,
+        indices = {
+                @Index(value = InventoryDatabase.ItemsTable.COL_NAME, name = "idx_items_name"),
+                @Index(value = InventoryDatabase.ItemsTable.COL_SKU, unique = true),
+                @Index(value = InventoryDatabase.ItemsTable.COL_UPC, unique = true)
+        })
+public class ItemEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_ID)
+    public long id;
+
+    @NonNull
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_NAME)
+    public String name = "";
+
+    @NonNull
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_UPC)
+    public String upc = "";
+
+    @NonNull
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_SKU)
+    public String sku = "";
+
+    @Nullable
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_SHORT_DESC)
+    public String shortDescription;
+
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_QTY, defaultValue = "0")
+    public int quantity;
+
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_VERSION, defaultValue = "0")
+    public long version;
+
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_REORDER, defaultValue = "0")
+    public int reorderPoint;
+
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_PREV_QTY, defaultValue = "0")
+    public int prevQuantity;
+
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_UPDATED_SEQ, defaultValue = "0")
+    public long updatedSeq;
+
+    @Nullable
+    @ColumnInfo(name = InventoryDatabase.ItemsTable.COL_IMAGE_KEY)
+    public String imageKey;
+}
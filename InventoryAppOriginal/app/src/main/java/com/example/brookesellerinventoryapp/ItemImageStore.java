@@ -0,0 +1,237 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.ImageDecoder;
+import android.net.Uri;
+import android.os.Handler;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Item photos on disk, named by the SHA-256 of their bytes. The key is what
+ * items.image_key holds; the same photo attached twice is stored once.
+ *
+ * Each photo also gets a thumbnail about THUMB_PX on its short side, made in
+ * the background on a small pool. The grid draws thumbnails, so scrolling past
+ * thousands of pictured items decodes a few KB per card instead of a full photo.
+ *
+ * Layout under filesDir/images: one file per photo named by its key, and
+ * thumbs/KEY.webp.
+ */
+public final class ItemImageStore {
+
+    private static final String TAG = "ItemImageStore";
+    // Short side of a thumbnail; a grid card is about this wide on a phone
+    static final int THUMB_PX = 360;
+    private static final int THUMB_QUALITY = 80;
+    private static final int WORKERS = 2;
+    // a photo added this recently is never pruned (its item may not be saved yet)
+    private static final long PRUNE_GRACE_MS = 24 * 60 * 60 * 1000L;
+
+    private final ContentResolver resolver;
+    private final File dir;
+    private final File thumbs;
+    private final ExecutorService pool;
+    // keys whose thumbnail is on disk, and ones being made now
+    private final Set<String> ready = ConcurrentHashMap.newKeySet();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    ItemImageStore(ContentResolver resolver, File filesDir) {
+        this.resolver = resolver;
+        this.dir = new File(filesDir, "images");
+        this.thumbs = new File(dir, "thumbs");
+        AtomicInteger workerNo = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "item-image-" + workerNo.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        // learn which thumbnails already exist, so binds never stat the disk
+        pool.execute(() -> {
+            String[] names = thumbs.list();
+            if (names == null) return;
+            for (String n : names) {
+                if (n.endsWith(".webp")) ready.add(n.substring(0, n.length() - 5));
+            }
+        });
+    }
+
+    /**
+     * Copy a picked photo into the store on the image pool, then make its
+     * thumbnail there too. onMain gets the key, or null if it couldn't be read.
+     */
+    public void addAsync(Uri uri, Handler main, Consumer<String> onMain) {
+        pool.execute(() -> {
+            String key = null;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                if (in != null) key = add(in);
+            } catch (IOException | SecurityException e) {
+                Log.w(TAG, "couldn't read " + uri, e);
+            }
+            if (key != null) makeThumbnail(key);
+            final String k = key;
+            main.post(() -> onMain.accept(k));
+        });
+    }
+
+    // Hash while copying to a temp file, then move it to its key (any thread)
+    String add(InputStream in) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("can't create " + dir);
+        File tmp = File.createTempFile("add", ".tmp", dir);
+        try {
+            MessageDigest sha;
+            try {
+                sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            try (DigestInputStream src = new DigestInputStream(in, sha);
+                 OutputStream out = new FileOutputStream(tmp)) {
+                byte[] buf = new byte[64 * 1024];
+                int n;
+                while ((n = src.read(buf)) > 0) out.write(buf, 0, n);
+            }
+            String key = hex(sha.digest());
+            File dest = original(key);
+            if (dest.exists()) {
+                // already stored: same bytes, same key. Touch it so pruning waits again.
+                dest.setLastModified(System.currentTimeMillis());
+            } else if (!tmp.renameTo(dest)) {
+                throw new IOException("can't store " + key);
+            }
+            return key;
+        } finally {
+            if (tmp.exists() && !tmp.delete()) Log.w(TAG, "couldn't delete " + tmp);
+        }
+    }
+
+    /**
+     * What the grid should load for an item's image: the thumbnail once it
+     * exists, else the photo itself (and a thumbnail is queued). A value that
+     * isn't a key (a URL or path) is passed through as is.
+     */
+    @Nullable
+    public Object forGrid(@Nullable String keyOrPath) {
+        if (keyOrPath == null || keyOrPath.isEmpty()) return null;
+        if (!isKey(keyOrPath)) return keyOrPath;
+        if (ready.contains(keyOrPath)) return thumbnail(keyOrPath);
+        if (queued.add(keyOrPath)) {
+            pool.execute(() -> {
+                makeThumbnail(keyOrPath);
+                queued.remove(keyOrPath);
+            });
+        }
+        return original(keyOrPath);
+    }
+
+    /** What the details screen loads: the full photo. */
+    @Nullable
+    public Object forDetail(@Nullable String keyOrPath) {
+        if (keyOrPath == null || keyOrPath.isEmpty()) return null;
+        return isKey(keyOrPath) ? original(keyOrPath) : keyOrPath;
+    }
+
+    File original(String key) {
+        return new File(dir, key);
+    }
+
+    File thumbnail(String key) {
+        return new File(thumbs, key + ".webp");
+    }
+
+    // Decode straight at thumbnail size (no full-size bitmap), write WebP (image pool)
+    void makeThumbnail(String key) {
+        File out = thumbnail(key);
+        if (out.exists()) {
+            ready.add(key);
+            return;
+        }
+        File src = original(key);
+        if (!src.exists()) return;
+        if (!thumbs.isDirectory() && !thumbs.mkdirs()) return;
+        File tmp = null;
+        Bitmap bmp = null;
+        try {
+            // own temp name: two workers can make the same thumbnail at once
+            tmp = File.createTempFile("thumb", ".tmp", thumbs);
+            bmp = ImageDecoder.decodeBitmap(ImageDecoder.createSource(src), (decoder, info, s) -> {
+                Size size = info.getSize();
+                int shortSide = Math.min(size.getWidth(), size.getHeight());
+                if (shortSide > THUMB_PX) {
+                    float f = THUMB_PX / (float) shortSide;
+                    decoder.setTargetSize(Math.max(1, Math.round(size.getWidth() * f)),
+                            Math.max(1, Math.round(size.getHeight() * f)));
+                }
+                // compress() needs a bitmap it can read back
+                decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+            });
+            try (OutputStream os = new FileOutputStream(tmp)) {
+                bmp.compress(Bitmap.CompressFormat.WEBP_LOSSY, THUMB_QUALITY, os);
+            }
+            if (tmp.renameTo(out)) ready.add(key);
+        } catch (IOException e) {
+            Log.w(TAG, "thumbnail failed for " + key, e);
+        } finally {
+            if (bmp != null) bmp.recycle();
+            if (tmp != null && tmp.exists() && !tmp.delete()) Log.w(TAG, "couldn't delete " + tmp);
+        }
+    }
+
+    /** Delete photos and thumbnails no item points at any more (image pool). */
+    public void pruneAsync(Collection<String> inUse) {
+        Set<String> keep = new HashSet<>(inUse);
+        pool.execute(() -> {
+            String[] names = dir.list();
+            if (names == null) return;
+            long cutoff = System.currentTimeMillis() - PRUNE_GRACE_MS;
+            int removed = 0;
+            for (String n : names) {
+                if (!isKey(n) || keep.contains(n)) continue;
+                if (original(n).lastModified() > cutoff) continue;
+                ready.remove(n);
+                if (original(n).delete()) removed++;
+                thumbnail(n).delete();
+            }
+            if (removed > 0) Log.i(TAG, "pruned " + removed + " unused images");
+        });
+    }
+
+    // 64 lowercase hex digits
+    static boolean isKey(String s) {
+        if (s.length() != 64) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return false;
+        }
+        return true;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
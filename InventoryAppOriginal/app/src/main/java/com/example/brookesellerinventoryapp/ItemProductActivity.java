@@ -1,9 +1,10 @@
 package com.example.brookesellerinventoryapp;
 
+import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Looper;
 import android.text.Editable;
 import android.text.InputFilter;
 import android.text.TextWatcher;
@@ -14,30 +15,51 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.PickVisualMediaRequest;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.bumptech.glide.Glide;
 import com.google.android.material.appbar.MaterialToolbar;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
 public class ItemProductActivity extends AppCompatActivity {
 
+    // Open the details for an item. Only the id goes in the intent (sku as a
+    // fallback, name for the title); the screen loads the rest when it opens.
+    static Intent intentFor(Context ctx, Item item) {
+        return new Intent(ctx, ItemProductActivity.class)
+                .putExtra("EXTRA_ID", item.id)
+                .putExtra("EXTRA_SKU", item.sku)
+                .putExtra("EXTRA_NAME", item.name);
+    }
+
     // Views on the screen
     private ImageView imgProduct;
     private TextView tvTitle, tvDescription, tvSku, tvUpc;
     private EditText etQty;
     private Button btnMinus, btnPlus, btnRemove;
     private InventoryDatabase db;
-    private final ExecutorService io = Executors.newSingleThreadExecutor();
-    private final Handler main = new Handler(Looper.getMainLooper());
+    private ItemImageStore images;
+    private StockLedger ledger;   // coalesces +/- taps and typed quantities per SKU
+    private Executor io;      // shared database readers
+    private Executor writer;  // shared database writer
+    private Handler main;
     private long itemId = -1;
     private String name, sku, upc, desc, image;
-    private int currentQty = 0;
+    private int currentQty = 0;       // last committed quantity; the box adds what's pending
+    private long knownVersion = -1;   // row version we last saw, -1 until loaded
     private boolean suppressQtyWatcher = false;
     private Runnable pendingSave;
+    private ActivityResultLauncher<PickVisualMediaRequest> pickPhoto;
+
+    // Keep the quantity and version in step with writes from other screens
+    private final InventoryChangeFeed.Listener feedListener =
+            change -> main.post(() -> onItemChanged(change));
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -46,7 +68,13 @@ public class ItemProductActivity extends AppCompatActivity {
         setContentView(R.layout.item_product);
 
         // Set up database and notification channel
-        db = new InventoryDatabase(this);
+        InventoryRepository repo = InventoryRepository.get(this);
+        db = repo.db();
+        images = repo.images();
+        ledger = repo.ledger();
+        io = repo.io();
+        writer = repo.writer();
+        main = repo.main();
         Notifications.ensureChannel(getApplicationContext());
 
         // Find views
@@ -64,37 +92,34 @@ public class ItemProductActivity extends AppCompatActivity {
         MaterialToolbar toolbar = findViewById(R.id.topAppBar);
         if (toolbar != null) toolbar.setNavigationOnClickListener(v -> finish());
 
-        // Read values passed in from the previous screen
-        itemId     = getIntent().getLongExtra("EXTRA_ID", -1);
-        name       = getIntent().getStringExtra("EXTRA_NAME");
-        sku        = getIntent().getStringExtra("EXTRA_SKU");
-        currentQty = getIntent().getIntExtra("EXTRA_QTY", 0);
-        image      = getIntent().getStringExtra("EXTRA_IMAGE");
-        upc        = getIntent().getStringExtra("EXTRA_UPC");
-        desc       = getIntent().getStringExtra("EXTRA_DESCRIPTION");
+        // Which item to show; everything else is loaded by loadCurrentRow()
+        itemId = getIntent().getLongExtra("EXTRA_ID", -1);
+        name   = getIntent().getStringExtra("EXTRA_NAME");
+        sku    = getIntent().getStringExtra("EXTRA_SKU");
 
-        // Fill the text fields
+        // Title and sku right away; upc, description and quantity once loaded
         tvTitle.setText(name != null ? name : "");
         tvSku.setText(sku != null ? sku : "");
-        tvUpc.setText(upc != null ? upc : "");
-        tvDescription.setText(desc != null ? desc : "");
-
-        // Show the current quantity in the box
-        suppressQtyWatcher = true;
-        etQty.setText(String.valueOf(currentQty));
-        suppressQtyWatcher = false;
+        showImage(null);
 
-        // Show the image if there is one otherwise have a placeholder
-        if (image == null || image.isEmpty()) {
-            imgProduct.setImageResource(android.R.drawable.ic_menu_report_image);
-        } else {
-            Glide.with(this)
-                    .load(image)
-                    .placeholder(android.R.drawable.ic_menu_report_image)
-                    .error(android.R.drawable.ic_menu_report_image)
-                    .centerCrop()
-                    .into(imgProduct);
-        }
+        // Tap the photo to pick one (system photo picker, no permission needed);
+        // long press to remove it
+        pickPhoto = registerForActivityResult(
+                new ActivityResultContracts.PickVisualMedia(),
+                uri -> { if (uri != null) attachPhoto(uri); });
+        imgProduct.setOnClickListener(v -> pickPhoto.launch(new PickVisualMediaRequest.Builder()
+                .setMediaType(ActivityResultContracts.PickVisualMedia.ImageOnly.INSTANCE)
+                .build()));
+        imgProduct.setOnLongClickListener(v -> {
+            if (image == null || itemId <= 0) return false;
+            new AlertDialog.Builder(this)
+                    .setTitle("Remove photo")
+                    .setMessage("Remove this item's photo?")
+                    .setPositiveButton("Remove", (d, w) -> writer.execute(() -> db.setItemImage(itemId, null)))
+                    .setNegativeButton("Cancel", null)
+                    .show();
+            return true;
+        });
 
         // Only allow numbers in the quantity box, limit to 5 digits
         etQty.setKeyListener(DigitsKeyListener.getInstance("0123456789"));
@@ -108,7 +133,7 @@ public class ItemProductActivity extends AppCompatActivity {
         btnRemove.setOnClickListener(v -> new AlertDialog.Builder(this)
                 .setTitle("Remove Item")
                 .setMessage("Are you sure you want to remove this item?")
-                .setPositiveButton("Yes", (d, w) -> io.execute(() -> {
+                .setPositiveButton("Yes", (d, w) -> writer.execute(() -> {
                     int deleted = 0;
                     // Try delete by id first, then by sku
                     if (itemId > 0) {
@@ -157,13 +182,107 @@ public class ItemProductActivity extends AppCompatActivity {
                 setQtyImmediate(val);
             }
         });
+
+        InventoryChangeFeed.addListener(feedListener);
+        loadCurrentRow();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Stop the background thread
-        io.shutdown();
+        InventoryChangeFeed.removeListener(feedListener);
+        // hand a typed quantity that's still waiting to the ledger rather than drop it
+        if (pendingSave != null) setQtyImmediate(parseOrZero(etQty.getText().toString()));
+    }
+
+    // Load the full row by id, off the main thread. Recently opened rows come from
+    // a small cache kept current on each write; others are one primary-key read.
+    // Also gives typed edits a version to compare against.
+    private void loadCurrentRow() {
+        io.execute(() -> {
+            Item it = itemId > 0 ? db.findItemById(itemId) : null;
+            if (it == null && sku != null && !sku.isEmpty()) it = db.findItemBySku(sku);
+            final Item found = it;
+            main.post(() -> {
+                if (isDestroyed()) return;
+                if (found == null) {
+                    // deleted since the list was drawn
+                    Toast.makeText(this, "Item not found", Toast.LENGTH_SHORT).show();
+                    finish();
+                    return;
+                }
+                onItemChanged(new ItemChange(ItemChange.Type.UPDATE, found));
+            });
+        });
+    }
+
+    // A row changed somewhere (main thread)
+    private void onItemChanged(ItemChange change) {
+        if (isDestroyed() || change.item == null || !isThisItem(change.item)) return;
+        if (change.type != ItemChange.Type.UPDATE) return;
+        // versions only go up; ignore a late read of an older row
+        if (change.item.version < knownVersion) return;
+        Item it = change.item;
+        knownVersion = it.version;
+        currentQty = it.quantity;
+        if (itemId <= 0) itemId = it.id;
+        name = it.name;
+        sku = it.sku;
+        tvTitle.setText(name != null ? name : "");
+        tvSku.setText(sku != null ? sku : "");
+        // full rows only; a lean list row has no upc or description to show
+        if (it.upc != null) {
+            upc = it.upc;
+            desc = it.description;
+            tvUpc.setText(upc);
+            tvDescription.setText(desc != null ? desc : "");
+        }
+        if (!Objects.equals(it.imageUrlOrPath, image)) {
+            image = it.imageUrlOrPath;
+            showImage(image);
+        }
+        // don't overwrite what the user is still typing
+        if (pendingSave == null) showQty(expectedQty());
+    }
+
+    // Copy the picked photo into the store (thumbnail included), then point the
+    // item at it; the new row comes back through the change feed
+    private void attachPhoto(Uri uri) {
+        if (itemId <= 0) return;
+        final long id = itemId;
+        images.addAsync(uri, main, key -> {
+            if (key == null) {
+                if (!isDestroyed()) Toast.makeText(this, "Couldn't read that photo", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            writer.execute(() -> db.setItemImage(id, key));
+        });
+    }
+
+    // Show the image if there is one otherwise have a placeholder
+    private void showImage(String keyOrPath) {
+        if (keyOrPath == null || keyOrPath.isEmpty()) {
+            Glide.with(this).clear(imgProduct);
+            imgProduct.setImageResource(android.R.drawable.ic_menu_report_image);
+        } else {
+            Glide.with(this)
+                    .load(images.forDetail(keyOrPath))
+                    .placeholder(android.R.drawable.ic_menu_report_image)
+                    .error(android.R.drawable.ic_menu_report_image)
+                    .centerCrop()
+                    .into(imgProduct);
+        }
+    }
+
+    private boolean isThisItem(Item it) {
+        return itemId > 0 ? it.id == itemId : sku != null && sku.equals(it.sku);
+    }
+
+    private void showQty(int qty) {
+        suppressQtyWatcher = true;
+        etQty.setText(String.valueOf(qty));
+        etQty.setSelection(etQty.getText().length());
+        suppressQtyWatcher = false;
     }
 
     // Turn a string into a number, or 0 if it is not a number
@@ -171,66 +290,51 @@ public class ItemProductActivity extends AppCompatActivity {
         try { return Integer.parseInt(s.trim()); } catch (Exception e) { return 0; }
     }
 
-    // Change the quantity by +1 or -1
+    // Committed quantity plus the taps and typing not written yet
+    private int expectedQty() {
+        return sku == null ? currentQty : ledger.expectedQuantity(sku, currentQty);
+    }
+
+    // Change the quantity by +1 or -1. Shown right away; the ledger merges
+    // a run of taps into one write, and the alert dispatcher only sees that.
     private void adjustQty(int delta) {
         if (sku == null || sku.isEmpty()) {
             Toast.makeText(this, "Missing SKU", Toast.LENGTH_SHORT).show();
             return;
         }
-        final int prev = currentQty;
-        io.execute(() -> {
-            // Update database first
-            db.adjustQuantityBySku(sku, delta);
-            // Update local copy and keep it >= 0
-            int newQty = Math.max(0, prev + delta);
-            currentQty = newQty;
-
-            //  show a notification
-            if (prev > 0 && newQty == 0) {
-                Notifications.notifyZeroStock(getApplicationContext(), itemId, sku, name);
-            }
-
-            // Update the UI text
-            main.post(() -> {
-                suppressQtyWatcher = true;
-                etQty.setText(String.valueOf(currentQty));
-                etQty.setSelection(etQty.getText().length());
-                suppressQtyWatcher = false;
-            });
-        });
+        // a typed quantity still waiting goes first, so the tap adds to it
+        if (pendingSave != null) setQtyImmediate(parseOrZero(etQty.getText().toString()));
+        ledger.record(sku, delta, StockLedger.REASON_ADJUST);
+        showQty(expectedQty());
     }
 
     // Save the typed quantity after a small delay
     private void scheduleSetQty(int newQty) {
         if (pendingSave != null) main.removeCallbacks(pendingSave);
-        pendingSave = () -> setQtyImmediate(newQty);
+        pendingSave = () -> {
+            pendingSave = null;
+            setQtyImmediate(newQty);
+        };
         main.postDelayed(pendingSave, 350);
     }
 
-    // Save the typed quantity
+    // Save the typed quantity; it replaces any taps still waiting
     private void setQtyImmediate(int newQty) {
         newQty = Math.max(0, newQty);
+        if (pendingSave != null) {
+            main.removeCallbacks(pendingSave);
+            pendingSave = null;
+        }
         if (sku == null || sku.isEmpty()) return;
+        if (newQty == expectedQty()) return;
 
-        final int prev = currentQty;
-        final int saveVal = newQty;
-        io.execute(() -> {
-            // Write to database and local copy
-            db.updateQuantityBySku(sku, saveVal);
-            currentQty = saveVal;
-
-            // show a notification
-            if (prev > 0 && saveVal == 0) {
-                Notifications.notifyZeroStock(getApplicationContext(), itemId, sku, name);
-            }
-
-            // Update the UI text
-            main.post(() -> {
-                suppressQtyWatcher = true;
-                etQty.setText(String.valueOf(currentQty));
-                etQty.setSelection(etQty.getText().length());
-                suppressQtyWatcher = false;
-            });
+        // compared against the version we last saw (-1 = not loaded yet, no check);
+        // if someone changed the item since, show theirs instead of overwriting
+        ledger.set(sku, newQty, knownVersion, () -> {
+            if (isDestroyed()) return;
+            Toast.makeText(this, "Quantity was changed elsewhere, please check it",
+                    Toast.LENGTH_SHORT).show();
+            showQty(expectedQty());
         });
     }
 }
@@ -0,0 +1,217 @@
+package com.example.brookesellerinventoryapp;
+
+import android.database.Cursor;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.OperationCanceledException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Search-as-you-type for the inventory grid.
+ *
+ * - Keystrokes are debounced, so a fast typist runs one query, not one per letter.
+ * - A new query cancels the one in flight (CancellationSignal), so stale scans
+ *   never pile up on the database thread.
+ * - When the new text only adds to the old ("blu" -> "blue") and the old result
+ *   wasn't cut off at the limit, the old rows are filtered in memory instead.
+ * - Every request gets a sequence number and only the latest one is delivered.
+ *
+ * Everything here runs on the main thread except the query itself.
+ */
+public class ItemSearch {
+
+    public interface Callback {
+        // Rows for the latest query, in rank order (main thread)
+        void onResults(List<Item> rows);
+    }
+
+    private static final long DEBOUNCE_MS = 150;
+
+    private final InventoryDatabase db;
+    private final Executor io;
+    private final Handler main;
+    private final Callback callback;
+    private final int limit;
+
+    private int seq = 0;                          // bumps on every submit/cancel
+    private Runnable pendingQuery;
+    private CancellationSignal inFlight;
+
+    private String shownQuery = "";               // query the current rows answer
+    private final ArrayList<Item> shown = new ArrayList<>();
+    private boolean canNarrow = false;            // shown holds every match for shownQuery
+
+    public ItemSearch(InventoryDatabase db, Executor io, Handler main, Callback callback) {
+        this(db, io, main, callback, InventoryDatabase.SEARCH_LIMIT);
+    }
+
+    ItemSearch(InventoryDatabase db, Executor io, Handler main, Callback callback, int limit) {
+        this.db = db;
+        this.io = io;
+        this.main = main;
+        this.callback = callback;
+        this.limit = limit;
+    }
+
+    // Search for q (already trimmed, not empty)
+    public void submit(String q) {
+        cancel();
+        final int mySeq = seq;
+
+        if (canNarrow && isNarrowing(shownQuery, q)) {
+            // every match for q is already in memory
+            deliver(q, narrow(shown, q), true);
+            return;
+        }
+
+        pendingQuery = () -> {
+            pendingQuery = null;
+            CancellationSignal signal = new CancellationSignal();
+            inFlight = signal;
+            io.execute(() -> {
+                if (signal.isCanceled()) return;   // a newer query came first
+                List<Item> rows;
+                try (Cursor c = db.searchItems(q, limit, signal)) {
+                    rows = InventoryDatabase.readItems(c);
+                } catch (OperationCanceledException e) {
+                    return;
+                }
+                main.post(() -> {
+                    if (mySeq != seq) return;
+                    inFlight = null;
+                    // a cut-off result can't be narrowed: rows past the limit are missing
+                    deliver(q, rows, rows.size() < limit && !InventoryDatabase.toMatchQuery(q).isEmpty());
+                });
+            });
+        };
+        main.postDelayed(pendingQuery, DEBOUNCE_MS);
+    }
+
+    // Drop the pending and in-flight query (search box cleared or screen closing)
+    public void cancel() {
+        seq++;
+        if (pendingQuery != null) {
+            main.removeCallbacks(pendingQuery);
+            pendingQuery = null;
+        }
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Patch the shown rows with one committed change; the callback gets them if they changed.
+     * Rows are updated or removed in place. New rows aren't placed in a ranked list,
+     * so after an insert the next keystroke goes back to SQLite instead of narrowing.
+     */
+    public void apply(ItemChange change) {
+        if (change.type == ItemChange.Type.INSERT || change.type == ItemChange.Type.RELOAD) {
+            canNarrow = false;
+            return;
+        }
+        if (SortedItems.apply(shown, change, null, null, true)) {
+            callback.onResults(new ArrayList<>(shown));
+        }
+    }
+
+    private void deliver(String q, List<Item> rows, boolean complete) {
+        shownQuery = q;
+        if (rows != shown) {
+            shown.clear();
+            shown.addAll(rows);
+        }
+        canNarrow = complete;
+        callback.onResults(new ArrayList<>(shown));
+    }
+
+    // ---------------- In-memory narrowing ----------------
+
+    /**
+     * True if every row matching next also matches prev. With prefix matching
+     * this holds when next only appends to prev: the last word gets longer or
+     * new words are added, and each of those can only remove rows.
+     */
+    static boolean isNarrowing(String prev, String next) {
+        if (prev.isEmpty() || !next.startsWith(prev)) return false;
+        String prevMatch = InventoryDatabase.toMatchQuery(prev);
+        return !prevMatch.isEmpty() && !InventoryDatabase.toMatchQuery(next).isEmpty();
+    }
+
+    // Keep the rows that still match q, re-ranked the way searchItems ranks them
+    static List<Item> narrow(List<Item> rows, String q) {
+        String[] words = InventoryDatabase.toMatchQuery(q).replace("*", "").split(" ");
+        ArrayList<Item> out = new ArrayList<>();
+        for (Item it : rows) {
+            if (matchesAll(it, words)) out.add(it);
+        }
+        out.sort(rankFor(q));
+        return out;
+    }
+
+    // Every query word must prefix-match a word in name, SKU, UPC or description
+    private static boolean matchesAll(Item it, String[] words) {
+        for (String w : words) {
+            if (!hasWordStartingWith(it.name, w) && !hasWordStartingWith(it.sku, w)
+                    && !hasWordStartingWith(it.upc, w) && !hasWordStartingWith(it.description, w)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same word splitting as the FTS "simple" tokenizer; prefix is already lowercase
+    private static boolean hasWordStartingWith(String text, String prefix) {
+        if (text == null) return false;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !isTokenChar(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && isTokenChar(text.charAt(i))) i++;
+            if (i - start >= prefix.length() && startsWithFolded(text, start, prefix)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c >= 128;
+    }
+
+    // ORDER BY (name LIKE 'q%') DESC, name COLLATE NOCASE, _id
+    private static Comparator<Item> rankFor(String q) {
+        return (a, b) -> {
+            boolean pa = startsWithFolded(a.name, 0, q);
+            boolean pb = startsWithFolded(b.name, 0, q);
+            if (pa != pb) return pa ? -1 : 1;
+            int c = compareNoCase(a.name, b.name);
+            return c != 0 ? c : Long.compare(a.id, b.id);
+        };
+    }
+
+    // SQLite folds ASCII only, for both LIKE and NOCASE
+    private static boolean startsWithFolded(String s, int from, String prefix) {
+        if (s == null || s.length() - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (foldAscii(s.charAt(from + i)) != foldAscii(prefix.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static int compareNoCase(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        for (int i = 0; i < n; i++) {
+            int d = foldAscii(a.charAt(i)) - foldAscii(b.charAt(i));
+            if (d != 0) return d;
+        }
+        return a.length() - b.length();
+    }
+
+    private static char foldAscii(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+    }
+}
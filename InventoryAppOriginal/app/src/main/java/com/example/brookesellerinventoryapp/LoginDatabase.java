@@ -1,95 +1,110 @@
 package com.example.brookesellerinventoryapp;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
-import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
-public class LoginDatabase extends SQLiteOpenHelper {
+// Users table, backed by Room. One Room database is shared by every screen.
+public class LoginDatabase {
     // Name of the database file and its version
     private static final String DATABASE_NAME = "login.db";
-    private static final int VERSION = 2;
+    static final int VERSION = 3;
 
-    // Build the helper that opens/creates the database
+    private static volatile UserRoomDatabase shared;
+
+    private final UserRoomDatabase room;
+    private final UserDao users;
+
+    // Get the shared database (opened on first use)
     public LoginDatabase(Context context) {
-        super(context, DATABASE_NAME, null, VERSION);
+        room = open(context.getApplicationContext());
+        users = room.users();
     }
 
-    // Table and column names in one place
-    private static final class LoginTable {
-        private static final String TABLE = "users";          // table name
-        private static final String COL_ID = "_id";           // id
-        private static final String COL_USERNAME = "username";// username
-        private static final String COL_PASSWORD = "password";// password
-        private static final String COL_EMPLOYEE = "employee_name"; // name
+    private static UserRoomDatabase open(Context appContext) {
+        UserRoomDatabase r = shared;
+        if (r == null) {
+            synchronized (LoginDatabase.class) {
+                r = shared;
+                if (r == null) {
+                    r = Room.databaseBuilder(appContext, UserRoomDatabase.class, DATABASE_NAME)
+                            .addMigrations(MIGRATION_2_3)
+                            // the login screens check a handful of rows inline
+                            .allowMainThreadQueries()
+                            .build();
+                    shared = r;
+                }
+            }
+        }
+        return r;
     }
 
-    @Override
-    public void onCreate(SQLiteDatabase db) {
-        // Make the users table the first time the app runs
-        String sql = "CREATE TABLE " + LoginTable.TABLE + " (" +
-                LoginTable.COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                LoginTable.COL_USERNAME + " TEXT NOT NULL UNIQUE, " +
-                LoginTable.COL_PASSWORD + " TEXT NOT NULL, " +
-                LoginTable.COL_EMPLOYEE + " TEXT" +
-                ")";
-        db.execSQL(sql);
-
-        // Add an index on username so lookups are faster
-        db.execSQL("CREATE INDEX idx_users_username ON " + LoginTable.TABLE +
-                " (" + LoginTable.COL_USERNAME + ")");
-    }
+    // Version 2 was a hand-written helper. Same columns, but Room wants _id
+    // declared NOT NULL, so copy the rows into a table Room recognizes.
+    private static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE users_new (" +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "username TEXT NOT NULL, " +
+                    "password TEXT NOT NULL, " +
+                    "employee_name TEXT)");
+            db.execSQL("INSERT INTO users_new (_id, username, password, employee_name) " +
+                    "SELECT _id, username, password, employee_name FROM users");
+            db.execSQL("DROP TABLE users");
+            db.execSQL("ALTER TABLE users_new RENAME TO users");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_users_username ON users (username)");
+        }
+    };
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + LoginTable.TABLE);
-        onCreate(db);
+    // The Room database, for observing the users table
+    UserRoomDatabase room() {
+        return room;
     }
 
     // Insert a new user row and return its row id
     public long createUser(String username, String password, @Nullable String employeeName) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues cv = new ContentValues();
-        cv.put(LoginTable.COL_USERNAME, safe(username));     // store username
-        cv.put(LoginTable.COL_PASSWORD, safe(password));     // plaintext for demo only
-        if (employeeName != null) cv.put(LoginTable.COL_EMPLOYEE, employeeName);
-        return db.insert(LoginTable.TABLE, null, cv);        // returns -1 on failure
+        UserEntity u = new UserEntity();
+        u.username = safe(username);                // store username
+        u.password = safe(password);                // plaintext for demo only
+        u.employeeName = employeeName;
+        return users.insert(u);                     // returns -1 on failure
     }
 
     // Check if a username is already in the table
     public boolean userExists(String username) {
-        SQLiteDatabase db = getReadableDatabase();
-        String[] cols = { LoginTable.COL_ID };
-        String sel = LoginTable.COL_USERNAME + " = ?";
-        String[] args = { safe(username) };
-        try (Cursor c = db.query(LoginTable.TABLE, cols, sel, args, null, null, null)) {
-            return c.moveToFirst(); // true if we found a row
-        }
+        return users.exists(safe(username));
     }
 
     // Check if username and password match a row
     public boolean validateLogin(String username, String password) {
-        SQLiteDatabase db = getReadableDatabase();
-        String[] cols = { LoginTable.COL_ID };
-        String sel = LoginTable.COL_USERNAME + " = ? AND " + LoginTable.COL_PASSWORD + " = ?";
-        String[] args = { safe(username), safe(password) };
-        try (Cursor c = db.query(LoginTable.TABLE, cols, sel, args, null, null, null)) {
-            return c.moveToFirst(); // true if a match exists
-        }
+        return users.matches(safe(username), safe(password));
     }
 
     // Change the password for a username and return
     public int changePassword(String username, String newPassword) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues cv = new ContentValues();
-        cv.put(LoginTable.COL_PASSWORD, safe(newPassword));
-        String where = LoginTable.COL_USERNAME + " = ?";
-        String[] args = { safe(username) };
-        return db.update(LoginTable.TABLE, cv, where, args); // 1 on success, 0 if not found
+        return users.changePassword(safe(username), safe(newPassword)); // 1 on success, 0 if not found
+    }
+
+    // Delete one user by row id
+    public int deleteUser(long rowId) {
+        return users.deleteById(rowId);
+    }
+
+    // All users (_id, username, password), sorted by username
+    public Cursor listUsers() {
+        return users.listAll();
+    }
+
+    // Oldest account's username, or null if there are none
+    @Nullable
+    public String firstUsername() {
+        return users.firstUsername();
     }
 
     // Trim strings and turn null into empty to avoid crashes
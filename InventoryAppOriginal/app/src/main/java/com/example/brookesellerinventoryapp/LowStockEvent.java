@@ -0,0 +1,58 @@
+package com.example.brookesellerinventoryapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stock-level crossings from one committed write, published once per transaction
+ * however many rows it touched. Built from the rows the UPDATE returned, so
+ * nothing is queried to find them.
+ *
+ * An item is low when quantity < reorderPoint; items with no reorder point (0) never are.
+ * Changing only the reorder point doesn't count as a crossing.
+ * An item that runs out goes in outOfStock, whatever its reorder point.
+ */
+public final class LowStockEvent {
+
+    // Rows that went from at/above their reorder point to below it (row after the write)
+    public final List<Item> crossedBelow;
+    // Rows that went from below their reorder point back to at/above it
+    public final List<Item> restocked;
+    // Rows that went from some stock to 0
+    public final List<Item> outOfStock;
+
+    LowStockEvent(List<Item> crossedBelow, List<Item> restocked, List<Item> outOfStock) {
+        this.crossedBelow = Collections.unmodifiableList(crossedBelow);
+        this.restocked = Collections.unmodifiableList(restocked);
+        this.outOfStock = Collections.unmodifiableList(outOfStock);
+    }
+
+    static boolean isLow(int quantity, int reorderPoint) {
+        return quantity < reorderPoint;
+    }
+
+    // Collects crossings while a write reads back its rows
+    static final class Builder {
+        private final ArrayList<Item> below = new ArrayList<>();
+        private final ArrayList<Item> restocked = new ArrayList<>();
+        private final ArrayList<Item> out = new ArrayList<>();
+
+        // prevQuantity is the row's quantity before the write
+        void add(int prevQuantity, Item after) {
+            boolean was = isLow(prevQuantity, after.reorderPoint);
+            boolean now = isLow(after.quantity, after.reorderPoint);
+            if (!was && now) below.add(after);
+            else if (was && !now) restocked.add(after);
+            if (prevQuantity > 0 && after.quantity == 0) out.add(after);
+        }
+
+        boolean isEmpty() {
+            return below.isEmpty() && restocked.isEmpty() && out.isEmpty();
+        }
+
+        LowStockEvent build() {
+            return new LowStockEvent(below, restocked, out);
+        }
+    }
+}
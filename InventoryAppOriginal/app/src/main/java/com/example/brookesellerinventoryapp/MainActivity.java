@@ -2,14 +2,16 @@ package com.example.brookesellerinventoryapp;
 
 import android.content.DialogInterface;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Looper;
 import android.text.TextUtils;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
@@ -23,8 +25,12 @@ import com.google.android.material.tabs.TabLayoutMediator;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
 
 // Main screen with two tabs, a search in the toolbar, and a + button to add items
 public class MainActivity extends AppCompatActivity {
@@ -34,8 +40,17 @@ public class MainActivity extends AppCompatActivity {
     private TabLayout tabLayout;
     private FloatingActionButton fab;
     private InventoryDatabase db;
-    private final ExecutorService io = Executors.newSingleThreadExecutor();
-    private final Handler main = new Handler(Looper.getMainLooper());
+    private Executor io;      // shared database readers
+    private Executor writer;  // shared database writer
+    private Handler main;
+
+    // picks a CSV file to import
+    private ActivityResultLauncher<String[]> pickCsv;
+    // import progress owns the subtitle while it runs
+    private boolean importing = false;
+    // totals in the subtitle; re-read only when inventory_stats changes
+    private ObservableQuery<InventoryDatabase.Stats> stats;
+    private InventoryDatabase.Stats lastStats;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -45,8 +60,14 @@ public class MainActivity extends AppCompatActivity {
         androidx.appcompat.widget.Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
+        // shared database + its thread
+        InventoryRepository repo = InventoryRepository.get(this);
+        db        = repo.db();
+        io        = repo.io();
+        writer    = repo.writer();
+        main      = repo.main();
+
         // set up views
-        db        = new InventoryDatabase(this);
         viewPager = findViewById(R.id.viewPager);
         tabLayout = findViewById(R.id.tabLayout);
         fab       = findViewById(R.id.fab);
@@ -59,6 +80,83 @@ public class MainActivity extends AppCompatActivity {
 
         // + button opens the add item pop-up
         fab.setOnClickListener(v -> showAddItemDialog());
+
+        // file picker for "Import CSV"
+        pickCsv = registerForActivityResult(
+                new ActivityResultContracts.OpenDocument(),
+                uri -> { if (uri != null) importCsvAsync(uri); }
+        );
+
+        stats = new ObservableQuery<>(db.room(), io, main,
+                new String[] { InventoryDatabase.StatsTable.TABLE },
+                db::getInventoryStats,
+                s -> { lastStats = s; showStats(); });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        stats.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stats.stop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        stats.close();
+    }
+
+    // show SKU / unit / out-of-stock totals in the toolbar (one-row read, no scan)
+    private void showStats() {
+        if (importing || lastStats == null || getSupportActionBar() == null) return;
+        InventoryDatabase.Stats s = lastStats;
+        getSupportActionBar().setSubtitle(s.skuCount + " SKUs · " + s.unitCount + " units · "
+                + s.zeroCount + " out of stock");
+    }
+
+    // stream the picked CSV into the database on the background thread
+    private void importCsvAsync(Uri uri) {
+        Toast.makeText(this, "Importing…", Toast.LENGTH_SHORT).show();
+        importing = true;
+        writer.execute(() -> {
+            InventoryCsvImporter importer = new InventoryCsvImporter(db);
+            try (InputStream in = getContentResolver().openInputStream(uri)) {
+                if (in == null) throw new IOException("Can't open file");
+                InventoryCsvImporter.Result r = importer.importCsv(
+                        new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)),
+                        (read, inserted, rejected) -> main.post(() -> {
+                            if (getSupportActionBar() != null) {
+                                getSupportActionBar().setSubtitle("Imported " + inserted + " of " + read);
+                            }
+                        }));
+
+                // back to UI with the summary
+                main.post(() -> {
+                    importing = false;
+                    showStats();
+                    String msg = "Imported " + r.inserted + " items";
+                    if (r.rejected > 0) {
+                        msg += ", skipped " + r.rejected;
+                        if (!r.rejections.isEmpty()) {
+                            InventoryCsvImporter.Rejection first = r.rejections.get(0);
+                            msg += " (line " + first.line + ": " + first.reason + ")";
+                        }
+                    }
+                    Toast.makeText(this, msg, Toast.LENGTH_LONG).show();
+                });
+            } catch (Exception e) {
+                main.post(() -> {
+                    importing = false;
+                    showStats();
+                    Toast.makeText(this, "Import failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                });
+            }
+        });
     }
 
     // show the add item pop-up and save
@@ -72,6 +170,7 @@ public class MainActivity extends AppCompatActivity {
         final TextInputLayout tilUpc  = view.findViewById(R.id.tilUpc);
         final TextInputLayout tilDesc = view.findViewById(R.id.tilDesc);
         final TextInputLayout tilQty  = view.findViewById(R.id.tilQty);
+        final TextInputLayout tilReorder = view.findViewById(R.id.tilReorder);
 
         // actual inputs
         final TextInputEditText inputName = view.findViewById(R.id.inputName);
@@ -79,6 +178,7 @@ public class MainActivity extends AppCompatActivity {
         final TextInputEditText inputUpc  = view.findViewById(R.id.inputUpc);
         final TextInputEditText inputDesc = view.findViewById(R.id.inputDesc);
         final TextInputEditText inputQty  = view.findViewById(R.id.inputQty);
+        final TextInputEditText inputReorder = view.findViewById(R.id.inputReorder);
 
         // build the dialog
         AlertDialog dialog = new AlertDialog.Builder(this)
@@ -96,6 +196,7 @@ public class MainActivity extends AppCompatActivity {
                 tilSku.setError(null);
                 tilUpc.setError(null);
                 tilQty.setError(null);
+                tilReorder.setError(null);
 
                 // read input
                 String name = safe(getText(inputName));
@@ -103,6 +204,7 @@ public class MainActivity extends AppCompatActivity {
                 String upc  = safe(getText(inputUpc));
                 String desc = safe(getText(inputDesc));
                 String qtyS = safe(getText(inputQty));
+                String reorderS = safe(getText(inputReorder));
 
                 // must fill these
                 boolean ok = true;
@@ -119,13 +221,22 @@ public class MainActivity extends AppCompatActivity {
                     tilQty.setError("Invalid number");
                     ok = false;
                 }
+                int reorder = 0;
+                try {
+                    reorder = Integer.parseInt(reorderS.isEmpty() ? "0" : reorderS);
+                    if (reorder < 0) { tilReorder.setError("Must be ≥ 0"); ok = false; }
+                } catch (NumberFormatException e) {
+                    tilReorder.setError("Invalid number");
+                    ok = false;
+                }
 
                 // stop if not ok
                 if (!ok) return;
 
                 // do DB work on background thread
                 final int finalQty = qty;
-                io.execute(() -> {
+                final int finalReorder = reorder;
+                writer.execute(() -> {
                     // check if sku/upc already used
                     boolean skuExists = db.itemExistsBySku(sku);
                     boolean upcExists = db.itemExistsByUpc(upc);
@@ -140,15 +251,13 @@ public class MainActivity extends AppCompatActivity {
                     }
 
                     // save item
-                    long rowId = db.createItem(name, upc, sku, desc, finalQty);
+                    long rowId = db.createItem(name, upc, sku, desc, finalQty, finalReorder);
 
                     // back to UI
                     main.post(() -> {
                         if (rowId > 0) {
                             Toast.makeText(this, "Item added", Toast.LENGTH_SHORT).show();
                             dialog.dismiss();
-                            // tell the list to refresh
-                            notifyInventoryToRefresh();
                         } else {
                             Toast.makeText(this, "Insert failed", Toast.LENGTH_LONG).show();
                         }
@@ -161,12 +270,6 @@ public class MainActivity extends AppCompatActivity {
         dialog.show();
     }
 
-    // tell the InventoryFragment to reload
-    private void notifyInventoryToRefresh() {
-        main.post(() -> getSupportFragmentManager()
-                .setFragmentResult("refresh_inventory", new Bundle()));
-    }
-
     // get text or empty
     private static String getText(TextInputEditText et) {
         return et.getText() == null ? "" : et.getText().toString();
@@ -184,7 +287,7 @@ public class MainActivity extends AppCompatActivity {
         // wire search
         MenuItem searchItem = menu.findItem(R.id.action_search);
         SearchView sv = (SearchView) searchItem.getActionView();
-        sv.setQueryHint("Search by name...");
+        sv.setQueryHint("Search name, SKU or UPC...");
 
         // send query text to InventoryFragment as the user types
         sv.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
@@ -217,7 +320,27 @@ public class MainActivity extends AppCompatActivity {
 
         } else if (id == R.id.action_notifications) {
             // open zero-stock screen
-            startActivity(new Intent(this, ZeroStockActivity.class));
+            startActivity(StockListActivity.intentFor(this, StockListActivity.FILTER_ZERO));
+            return true;
+
+        } else if (id == R.id.action_scan_intake) {
+            // open scanner intake mode
+            startActivity(new Intent(this, ScannerIntakeActivity.class));
+            return true;
+
+        } else if (id == R.id.action_cycle_count) {
+            // open (or resume) a stock-take
+            startActivity(new Intent(this, CycleCountActivity.class));
+            return true;
+
+        } else if (id == R.id.action_low_stock) {
+            // open low-stock screen
+            startActivity(StockListActivity.intentFor(this, StockListActivity.FILTER_LOW));
+            return true;
+
+        } else if (id == R.id.action_import) {
+            // pick a CSV file to import
+            pickCsv.launch(new String[]{ "text/csv", "text/comma-separated-values", "text/plain" });
             return true;
 
         } else if (id == R.id.action_logout) {
@@ -234,11 +357,4 @@ public class MainActivity extends AppCompatActivity {
 
         return super.onOptionsItemSelected(item);
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // stop background thread
-        io.shutdown();
-    }
 }
@@ -0,0 +1,105 @@
+package com.example.brookesellerinventoryapp;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * A query that re-runs only when Room's InvalidationTracker says one of its
+ * tables changed. While the screen is stopped a change just marks it stale,
+ * and start() re-queries only if something actually changed (or it never ran).
+ *
+ * start()/stop() and the sink run on the main thread; the query runs on io.
+ */
+public final class ObservableQuery<T> {
+
+    public interface Source<T> {
+        T load();                           // io thread
+    }
+
+    public interface Sink<T> {
+        void onResult(T value);             // main thread
+    }
+
+    private final RoomDatabase room;
+    private final Executor io;
+    private final Handler main;
+    private final Source<T> source;
+    private final Sink<T> sink;
+    private final InvalidationTracker.Observer observer;
+
+    private boolean started = false;
+    private boolean stale = true;           // nothing loaded yet
+    private boolean loading = false;
+    private boolean closed = false;
+
+    public ObservableQuery(RoomDatabase room, Executor io, Handler main, String[] tables,
+                           Source<T> source, Sink<T> sink) {
+        this.room = room;
+        this.io = io;
+        this.main = main;
+        this.source = source;
+        this.sink = sink;
+        this.observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changed) {
+                // called on Room's thread
+                main.post(ObservableQuery.this::onInvalidated);
+            }
+        };
+        room.getInvalidationTracker().addObserver(observer);
+    }
+
+    // Screen is visible: deliver a fresh result if the tables changed since last time
+    public void start() {
+        started = true;
+        if (stale) load();
+    }
+
+    // Screen is hidden: keep listening, but only remember that something changed
+    public void stop() {
+        started = false;
+    }
+
+    // Stop listening for good
+    public void close() {
+        closed = true;
+        started = false;
+        room.getInvalidationTracker().removeObserver(observer);
+    }
+
+    private void onInvalidated() {
+        if (closed) return;
+        stale = true;
+        if (started) load();
+    }
+
+    private void load() {
+        if (loading) return;                // the running load re-checks stale when done
+        loading = true;
+        stale = false;
+        io.execute(() -> {
+            T value = source.load();
+            main.post(() -> {
+                loading = false;
+                if (closed) {
+                    // nobody will take it (cursors must still be closed)
+                    if (value instanceof Closeable) {
+                        try { ((Closeable) value).close(); } catch (IOException ignored) { }
+                    }
+                    return;
+                }
+                sink.onResult(value);
+                // a change landed while we were querying
+                if (stale && started) load();
+            });
+        });
+    }
+}
@@ -1,8 +1,8 @@
 package com.example.brookesellerinventoryapp;
 
 import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
 import android.os.Bundle;
+import android.os.Handler;
 import android.view.*;
 import android.widget.ListView;
 
@@ -11,10 +11,14 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 
+import java.util.concurrent.Executor;
+
 public class PasswordsFragment extends Fragment {
-    private LoginDatabase dbHelper;
+    private LoginDatabase loginDb;
     private PasswordListAdapter adapter;
-    private Cursor cursor;
+    private Executor writer;
+    // users list; re-queried only when the users table changes
+    private ObservableQuery<Cursor> users;
 
     @Nullable @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -29,40 +33,40 @@ public class PasswordsFragment extends Fragment {
         View empty = v.findViewById(R.id.empty);
         list.setEmptyView(empty); // show this when list has no rows
 
-        // Set up the database helper
-        dbHelper = new LoginDatabase(requireContext());
+        // Set up the database and its thread
+        loginDb = new LoginDatabase(requireContext());
+        InventoryRepository repo = InventoryRepository.get(requireContext());
+        writer = repo.writer();
+        Handler main = repo.main();
 
-        // Get all rows and plug them into the adapter
-        cursor = queryAll();
-        adapter = new PasswordListAdapter(requireContext(), cursor, this::confirmDelete);
+        // Start empty; the first query fills it in
+        adapter = new PasswordListAdapter(requireContext(), null, this::confirmDelete);
         list.setAdapter(adapter);
+
+        users = new ObservableQuery<>(loginDb.room(), io, main, new String[] { "users" },
+                loginDb::listUsers, this::showUsers);
     }
 
-    @Override public void onResume() {
-        super.onResume();
-        reload();
+    @Override public void onStart() {
+        super.onStart();
+        if (users != null) users.start();
     }
 
-    @Override public void onDestroyView() {
-        super.onDestroyView();
-        if (adapter != null) adapter.changeCursor(null);
-        if (cursor != null && !cursor.isClosed()) cursor.close();
-        if (dbHelper != null) dbHelper.close();
+    @Override public void onStop() {
+        super.onStop();
+        if (users != null) users.stop();
     }
 
-    // order by username
-    private Cursor queryAll() {
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        String[] cols = {"_id","username","password"};
-        return db.query("users", cols, null, null, null, null, "username ASC");
+    @Override public void onDestroyView() {
+        super.onDestroyView();
+        if (users != null) users.close();
+        if (adapter != null) adapter.changeCursor(null); // closes the last cursor
     }
 
     // Replace the adapter’s data with a fresh cursor
-    private void reload() {
-        Cursor newC = queryAll();
+    private void showUsers(Cursor newC) {
         Cursor old = adapter.swapCursor(newC);
         if (old != null && !old.isClosed()) old.close();
-        cursor = newC;
     }
 
     // Ask the user before deleting a row
@@ -70,17 +74,9 @@ public class PasswordsFragment extends Fragment {
         new AlertDialog.Builder(requireContext())
                 .setTitle("Delete user")
                 .setMessage("Are you sure you want to delete this entry?")
-                .setPositiveButton("Delete", (d, w) -> {
-                    deleteById(rowId); // remove from database
-                    reload();
-                })
+                // the users query sees the delete and refreshes the list
+                .setPositiveButton("Delete", (d, w) -> writer.execute(() -> loginDb.deleteUser(rowId)))
                 .setNegativeButton("Cancel", null)
                 .show();
     }
-
-    // delete user by id
-    private void deleteById(long rowId) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        db.delete("users", "_id=?", new String[]{ String.valueOf(rowId) });
-    }
 }
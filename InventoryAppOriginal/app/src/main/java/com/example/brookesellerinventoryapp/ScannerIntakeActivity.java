@@ -0,0 +1,217 @@
+package com.example.brookesellerinventoryapp;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.view.KeyEvent;
+import android.view.inputmethod.EditorInfo;
+import android.widget.ArrayAdapter;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.appbar.MaterialToolbar;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Receiving-dock intake. A USB/Bluetooth (HID) scanner types a UPC and Enter
+ * into the scan field, several times a second; each scan adds 1 to that item.
+ *
+ * Scans only go into a buffer on the main thread. Every COMMIT_DELAY_MS (and
+ * when the screen is left) the buffer goes to the writer thread, which looks
+ * the codes up in the in-memory UPC index and writes the per-item totals in one
+ * transaction, so a burst of scans costs one lookup pass and one commit.
+ */
+public class ScannerIntakeActivity extends AppCompatActivity {
+
+    private static final long COMMIT_DELAY_MS = 300;
+
+    // database helper
+    private InventoryDatabase db;
+    // shared reader threads and the one writer thread
+    private Executor io;
+    private Executor writer;
+    // handler to post results back to UI thread
+    private Handler main;
+
+    private EditText inputScan;
+    private TextView tvLastScan;
+    private TextView tvTotals;
+    private ArrayAdapter<String> tallyAdapter;
+
+    // codes scanned since the last commit (main thread)
+    private ArrayList<String> pending = new ArrayList<>();
+    private final Runnable commitTask = this::commitPending;
+    private boolean commitQueued = false;
+
+    // running totals for this session (main thread)
+    // sku -> tally, most recently scanned last
+    private final LinkedHashMap<String, Tally> tallies = new LinkedHashMap<>();
+    private int scanned = 0;
+    private int unknown = 0;
+
+    // what was scanned for one item, and its quantity after the last commit
+    private static final class Tally {
+        final String name;
+        final String sku;
+        int count;
+        int quantity;
+
+        Tally(String name, String sku) {
+            this.name = name;
+            this.sku = sku;
+        }
+    }
+
+    // what one commit did, handed back to the main thread
+    private static final class Committed {
+        final List<Item> items = new ArrayList<>();       // rows after the write
+        final List<Integer> counts = new ArrayList<>();   // scans per row
+        final List<String> unknownCodes = new ArrayList<>();
+    }
+
+    @Override protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_scanner_intake);
+
+        // back arrow closes this screen (pending scans are committed in onPause)
+        MaterialToolbar toolbar = findViewById(R.id.topAppBar);
+        if (toolbar != null) toolbar.setNavigationOnClickListener(v -> finish());
+
+        // shared DB and its threads
+        InventoryRepository repo = InventoryRepository.get(this);
+        db = repo.db();
+        io = repo.io();
+        writer = repo.writer();
+        main = repo.main();
+        // build the UPC index now so the first burst doesn't wait on it
+        io.execute(db::warmIndex);
+
+        inputScan = findViewById(R.id.inputScan);
+        tvLastScan = findViewById(R.id.tvLastScan);
+        tvTotals = findViewById(R.id.tvTotals);
+        ListView list = findViewById(R.id.listTallies);
+        tallyAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<>());
+        list.setAdapter(tallyAdapter);
+
+        // a scanner ends each code with Enter; a person can type one and tap Done
+        inputScan.setOnEditorActionListener((v, actionId, event) -> {
+            if (event != null) {
+                if (event.getKeyCode() != KeyEvent.KEYCODE_ENTER) return false;
+                // Enter arrives as key down and key up; only count it once
+                if (event.getAction() != KeyEvent.ACTION_DOWN) return true;
+            } else if (actionId != EditorInfo.IME_ACTION_DONE) {
+                return false;
+            }
+            onScan(String.valueOf(inputScan.getText()));
+            inputScan.setText(null);
+            return true;
+        });
+        inputScan.requestFocus();
+        showTotals();
+    }
+
+    @Override protected void onPause() {
+        super.onPause();
+        // leaving the screen: write what's buffered now, not in 300 ms
+        main.removeCallbacks(commitTask);
+        commitPending();
+    }
+
+    // Buffer one scanned code (main thread)
+    private void onScan(String raw) {
+        String code = raw.trim();
+        if (code.isEmpty()) return;
+        pending.add(code);
+        scanned++;
+        tvLastScan.setText("Scanned " + code);
+        showTotals();
+        if (!commitQueued) {
+            commitQueued = true;
+            main.postDelayed(commitTask, COMMIT_DELAY_MS);
+        }
+    }
+
+    // Hand the buffered codes to the writer thread (main thread)
+    private void commitPending() {
+        commitQueued = false;
+        if (pending.isEmpty()) return;
+        final List<String> codes = pending;
+        pending = new ArrayList<>();
+        writer.execute(() -> {
+            Committed done = commit(codes);
+            main.post(() -> onCommitted(done, codes.size()));
+        });
+    }
+
+    // Look up every code, then write one movement per item in one transaction (writer thread)
+    private Committed commit(List<String> codes) {
+        Committed done = new Committed();
+        // sku -> scans, in first-scanned order
+        LinkedHashMap<String, Integer> perSku = new LinkedHashMap<>();
+        for (String code : codes) {
+            Item it = db.findItemByUpc(code);
+            if (it == null) {
+                done.unknownCodes.add(code);
+            } else {
+                perSku.merge(it.sku, 1, Integer::sum);
+            }
+        }
+        if (perSku.isEmpty()) return done;
+
+        long now = System.currentTimeMillis();
+        List<StockLedger.Movement> moves = new ArrayList<>(perSku.size());
+        for (Map.Entry<String, Integer> e : perSku.entrySet()) {
+            moves.add(new StockLedger.Movement(e.getKey(), e.getValue(), StockLedger.REASON_SCAN, now));
+        }
+        db.applyMovements(moves);
+
+        // read back the committed rows (one primary-key read each)
+        for (Map.Entry<String, Integer> e : perSku.entrySet()) {
+            Item after = db.findItemBySku(e.getKey());
+            if (after == null) continue;                  // deleted meanwhile
+            done.items.add(after);
+            done.counts.add(e.getValue());
+        }
+        return done;
+    }
+
+    // Fold one commit into the running counts (main thread)
+    private void onCommitted(Committed done, int codes) {
+        if (isDestroyed()) return;
+        for (int i = 0; i < done.items.size(); i++) {
+            Item it = done.items.get(i);
+            Tally t = tallies.remove(it.sku);
+            if (t == null) t = new Tally(it.name, it.sku);
+            t.count += done.counts.get(i);
+            t.quantity = it.quantity;
+            tallies.put(it.sku, t);                       // move to the end = newest
+        }
+        unknown += done.unknownCodes.size();
+        if (!done.unknownCodes.isEmpty()) {
+            tvLastScan.setText("Unknown UPC: " + done.unknownCodes.get(done.unknownCodes.size() - 1));
+        } else if (!done.items.isEmpty()) {
+            Item last = done.items.get(done.items.size() - 1);
+            tvLastScan.setText(last.name + " now " + last.quantity + " (" + codes + " saved)");
+        }
+
+        List<String> lines = new ArrayList<>(tallies.size());
+        for (Tally t : tallies.values()) {
+            lines.add(0, t.name + " (SKU: " + t.sku + ")  +" + t.count + "  → " + t.quantity);
+        }
+        tallyAdapter.clear();
+        tallyAdapter.addAll(lines);
+        showTotals();
+    }
+
+    private void showTotals() {
+        tvTotals.setText("Scanned " + scanned + " · Items " + tallies.size()
+                + " · Unknown " + unknown + " · Waiting " + pending.size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.brookesellerinventoryapp;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.telephony.SmsManager;
+import android.telephony.SubscriptionManager;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends through the phone's SMS app. Long bodies go out as one multipart message.
+ * SmsManager only queues the message; whether it went out is reported later on
+ * a sent intent. send() waits for that report (every part, up to SEND_TIMEOUT_MS)
+ * and throws unless each part came back RESULT_OK, so the outbox retries it.
+ */
+public final class SmsManagerTransport implements SmsTransport {
+
+    private static final String ACTION_SENT = "com.example.brookesellerinventoryapp.SMS_SENT.";
+    // the radio normally answers in seconds; past this, give up and let the outbox retry
+    private static final long SEND_TIMEOUT_MS = 60_000;
+
+    // makes each send's action unique, so reports of an earlier send can't count for this one
+    private static final AtomicInteger sends = new AtomicInteger();
+
+    private final Context appContext;
+
+    public SmsManagerTransport(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    @Override
+    public void send(String destination, String body) throws IOException {
+        // permission can be revoked while messages are queued
+        if (ContextCompat.checkSelfPermission(appContext, Manifest.permission.SEND_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            throw new IOException("SEND_SMS not granted");
+        }
+        SmsManager sms = appContext.getSystemService(SmsManager.class);
+        if (sms == null) {
+            // pick the default SMS subscription
+            int subId = SubscriptionManager.getDefaultSmsSubscriptionId();
+            sms = SmsManager.getSmsManagerForSubscriptionId(subId);
+        }
+        ArrayList<String> parts = sms.divideMessage(body);
+
+        // one report per part; the first code that isn't RESULT_OK is kept
+        String action = ACTION_SENT + sends.incrementAndGet();
+        CountDownLatch reported = new CountDownLatch(parts.size());
+        AtomicInteger failure = new AtomicInteger(Activity.RESULT_OK);
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                int code = getResultCode();
+                if (code != Activity.RESULT_OK) failure.compareAndSet(Activity.RESULT_OK, code);
+                reported.countDown();
+            }
+        };
+        ContextCompat.registerReceiver(appContext, receiver, new IntentFilter(action),
+                ContextCompat.RECEIVER_NOT_EXPORTED);
+        try {
+            ArrayList<PendingIntent> sent = new ArrayList<>(parts.size());
+            for (int i = 0; i < parts.size(); i++) {
+                Intent report = new Intent(action).setPackage(appContext.getPackageName());
+                sent.add(PendingIntent.getBroadcast(appContext, i, report,
+                        PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE));
+            }
+            try {
+                if (parts.size() == 1) {
+                    sms.sendTextMessage(destination, null, body, sent.get(0), null);
+                } else {
+                    sms.sendMultipartTextMessage(destination, null, parts, sent, null);
+                }
+            } catch (RuntimeException e) {
+                // bad arguments (like an empty number); radio errors come back as result codes
+                throw new IOException("SMS send failed: " + e.getMessage(), e);
+            }
+
+            if (!reported.await(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                // it may still go out; a retry can then send it twice, which beats losing it
+                throw new IOException("SMS send not confirmed after " + SEND_TIMEOUT_MS + " ms");
+            }
+            int code = failure.get();
+            if (code != Activity.RESULT_OK) {
+                // no service, radio off, generic failure...
+                throw new IOException("SMS send failed: result " + code);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("SMS send interrupted", e);
+        } finally {
+            appContext.unregisterReceiver(receiver);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Durable queue of SMS stock alerts.
+ *
+ * - Alert lines are packed into as few messages as fit in MAX_MESSAGE_CHARS
+ *   (a few SMS parts each), so 300 empty SKUs become a handful of texts.
+ * - Messages are stored before anything is sent, so alerts survive a crash
+ *   or a phone with no signal.
+ * - One worker thread drains the store. A failed send is retried with
+ *   exponential backoff and dropped after MAX_ATTEMPTS.
+ *
+ * No Android classes here: the store, transport, clock and thread are all
+ * passed in, so the whole thing runs in a plain JVM test.
+ */
+public final class SmsOutbox {
+
+    // A long SMS is sent in 153-char parts; four parts per message keeps the
+    // per-message overhead low without making one failure cost too much
+    static final int MAX_MESSAGE_CHARS = 153 * 4;
+    static final int MAX_ATTEMPTS = 6;
+    static final long BASE_BACKOFF_MS = 5_000;
+    static final long MAX_BACKOFF_MS = 30 * 60 * 1000L;
+    // messages read from the store per round
+    private static final int BATCH = 20;
+
+    /** Where queued messages live between tries. Called only on the worker thread. */
+    public interface Store {
+        // Save a new message that is due at nextAttemptAt; returns its id
+        long add(String destination, String body, long nextAttemptAt);
+
+        // Messages due at or before now, oldest first
+        List<Message> due(long now, int limit);
+
+        void delete(long id);
+
+        // Record a failed try and when to try again
+        void retryLater(long id, int attempts, long nextAttemptAt);
+
+        // Earliest next try of anything queued, or null if empty
+        @Nullable
+        Long nextDueAt();
+    }
+
+    public static final class Message {
+        public final long id;
+        public final String destination;
+        public final String body;
+        public final int attempts;          // failed tries so far
+
+        public Message(long id, String destination, String body, int attempts) {
+            this.id = id;
+            this.destination = destination;
+            this.body = body;
+            this.attempts = attempts;
+        }
+    }
+
+    private final Store store;
+    private final SmsTransport transport;
+    private final ScheduledExecutorService worker;
+    private final LongSupplier clock;
+    private final AtomicBoolean drainQueued = new AtomicBoolean(false);
+
+    // counters for the settings screen and tests (worker thread writes, anyone reads)
+    private volatile long sent = 0;
+    private volatile long failedTries = 0;
+    private volatile long dropped = 0;
+
+    public SmsOutbox(Store store, SmsTransport transport, ScheduledExecutorService worker,
+                     LongSupplier clock) {
+        this.store = store;
+        this.transport = transport;
+        this.worker = worker;
+        this.clock = clock;
+    }
+
+    /** Pack the lines into messages, store them, and wake the worker. */
+    public void enqueueAlerts(String destination, List<String> lines) {
+        if (lines.isEmpty()) return;
+        worker.execute(() -> {
+            long now = clock.getAsLong();
+            for (String body : pack(lines, MAX_MESSAGE_CHARS)) store.add(destination, body, now);
+            drain();
+        });
+    }
+
+    /** Send whatever is due (after a restart, or when the network comes back). */
+    public void kick() {
+        scheduleDrain(0);
+    }
+
+    public long sentCount() { return sent; }
+    public long failedTryCount() { return failedTries; }
+    public long droppedCount() { return dropped; }
+
+    private void scheduleDrain(long delayMs) {
+        if (drainQueued.compareAndSet(false, true)) {
+            worker.schedule(() -> {
+                drainQueued.set(false);
+                drain();
+            }, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Send everything due now, then sleep until the next retry is due (worker thread)
+    void drain() {
+        List<Message> due;
+        while (!(due = store.due(clock.getAsLong(), BATCH)).isEmpty()) {
+            for (Message m : due) sendOne(m);
+        }
+        Long next = store.nextDueAt();
+        if (next != null) scheduleDrain(next - clock.getAsLong());
+    }
+
+    private void sendOne(Message m) {
+        try {
+            transport.send(m.destination, m.body);
+            store.delete(m.id);
+            sent++;
+        } catch (IOException | RuntimeException e) {
+            failedTries++;
+            int attempts = m.attempts + 1;
+            if (attempts >= MAX_ATTEMPTS) {
+                // give up; a stock alert days late isn't worth sending
+                store.delete(m.id);
+                dropped++;
+            } else {
+                store.retryLater(m.id, attempts, clock.getAsLong() + backoffMs(attempts));
+            }
+        }
+    }
+
+    // 5 s, 10 s, 20 s ... capped at 30 min
+    static long backoffMs(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << shift);
+    }
+
+    /**
+     * Greedy packing: each message gets a "Stock alert i/n" header, then as
+     * many whole lines as fit in maxChars. A line too long on its own is cut.
+     */
+    static List<String> pack(List<String> lines, int maxChars) {
+        // the header's width depends on n, which is only known after packing:
+        // start with room for "99/99" and pack again if n needs more digits
+        int digits = 2;
+        while (true) {
+            List<StringBuilder> bodies = packBodies(lines, maxChars - headerChars(digits));
+            int n = bodies.size();
+            if (String.valueOf(n).length() > digits) {
+                digits = String.valueOf(n).length();
+                continue;
+            }
+            List<String> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                out.add((n == 1 ? "Stock alert" : "Stock alert " + (i + 1) + "/" + n) + "\n" + bodies.get(i));
+            }
+            return out;
+        }
+    }
+
+    // "Stock alert i/n\n" with i and n up to the given digits
+    private static int headerChars(int digits) {
+        return "Stock alert ".length() + 2 * digits + 2;
+    }
+
+    private static List<StringBuilder> packBodies(List<String> lines, int budget) {
+        budget = Math.max(1, budget);
+        List<StringBuilder> bodies = new ArrayList<>();
+        StringBuilder cur = null;
+        for (String raw : lines) {
+            String line = raw.length() > budget ? raw.substring(0, budget) : raw;
+            if (cur != null && cur.length() + 1 + line.length() <= budget) {
+                cur.append('\n').append(line);
+            } else {
+                cur = new StringBuilder(budget).append(line);
+                bodies.add(cur);
+            }
+        }
+        return bodies;
+    }
+}
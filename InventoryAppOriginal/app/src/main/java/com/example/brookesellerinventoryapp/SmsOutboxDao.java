@@ -0,0 +1,43 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+// The outbox store, kept in inventory.db so queued alerts survive restarts
+@Dao
+public abstract class SmsOutboxDao implements SmsOutbox.Store {
+
+    @Insert
+    abstract long insert(SmsOutboxEntity row);
+
+    @Override
+    public long add(String destination, String body, long nextAttemptAt) {
+        SmsOutboxEntity row = new SmsOutboxEntity();
+        row.destination = destination;
+        row.body = body;
+        row.nextAttemptAt = nextAttemptAt;
+        return insert(row);
+    }
+
+    @Override
+    @Query("SELECT id, destination, body, attempts FROM sms_outbox"
+            + " WHERE next_attempt_at <= :now ORDER BY next_attempt_at, id LIMIT :limit")
+    public abstract List<SmsOutbox.Message> due(long now, int limit);
+
+    @Override
+    @Query("DELETE FROM sms_outbox WHERE id = :id")
+    public abstract void delete(long id);
+
+    @Override
+    @Query("UPDATE sms_outbox SET attempts = :attempts, next_attempt_at = :nextAttemptAt WHERE id = :id")
+    public abstract void retryLater(long id, int attempts, long nextAttemptAt);
+
+    @Override
+    @Nullable
+    @Query("SELECT MIN(next_attempt_at) FROM sms_outbox")
+    public abstract Long nextDueAt();
+}
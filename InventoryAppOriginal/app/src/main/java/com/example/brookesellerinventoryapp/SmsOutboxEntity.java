@@ -0,0 +1,32 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// Room entity for the SMS outbox: one row per packed message waiting to be sent
+@Entity(tableName = SmsOutboxEntity.TABLE,
+        indices = { @Index(value = "next_attempt_at", name = "idx_sms_outbox_due") })
+public class SmsOutboxEntity {
+
+    static final String TABLE = "sms_outbox";
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @NonNull
+    public String destination = "";
+
+    @NonNull
+    public String body = "";
+
+    // failed tries so far
+    @ColumnInfo(defaultValue = "0")
+    public int attempts;
+
+    // epoch ms; the worker sends rows whose time has come
+    @ColumnInfo(name = "next_attempt_at")
+    public long nextAttemptAt;
+}
@@ -3,17 +3,20 @@ package com.example.brookesellerinventoryapp;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
-import android.telephony.SmsManager;
-import android.telephony.SubscriptionManager;
+import android.text.InputType;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import java.util.Collections;
+
 public class SmsPermissionActivity extends AppCompatActivity {
 
     // Code we use to identify the SMS permission request
@@ -98,7 +101,8 @@ public class SmsPermissionActivity extends AppCompatActivity {
         }
     }
 
-    // Sends a one-time test SMS to confirm everything works
+    // Queues a one-time test SMS to confirm everything works.
+    // Asks for the alert number first if there isn't one yet.
     private void sendTestNotification() {
         // checks if permission changed
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.SEND_SMS)
@@ -107,24 +111,36 @@ public class SmsPermissionActivity extends AppCompatActivity {
             return;
         }
 
-        // Replace this with a real number you control
-        String phoneNumber = "+13125551234";
-        String message = "Test notification: Low inventory alert!";
-
-        // Get the system SMS manager
-        SmsManager sms = getSystemService(SmsManager.class);
-        if (sms == null) {
-            // pick the default SMS subscription
-            int subId = SubscriptionManager.getDefaultSmsSubscriptionId();
-            sms = SmsManager.getSmsManagerForSubscriptionId(subId);
+        String phoneNumber = StockAlertDispatcher.alertNumber(this);
+        if (phoneNumber == null) {
+            askForNumber();
+            return;
         }
 
-        try {
-            sms.sendTextMessage(phoneNumber, null, message, null, null);
-            Toast.makeText(this, "Test notification sent!", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            // Catch and show any errors
-            Toast.makeText(this, "Failed to send SMS: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
+        // the outbox sends it from its own thread and retries if there's no signal
+        InventoryRepository.get(this).smsOutbox().enqueueAlerts(phoneNumber,
+                Collections.singletonList("Test notification: Low inventory alert!"));
+        Toast.makeText(this, "Test notification queued for " + phoneNumber, Toast.LENGTH_SHORT).show();
+    }
+
+    // Ask which number gets stock alerts, save it, then send the test
+    private void askForNumber() {
+        EditText input = new EditText(this);
+        input.setInputType(InputType.TYPE_CLASS_PHONE);
+        input.setHint("+1 555 555 5555");
+        new AlertDialog.Builder(this)
+                .setTitle("Alert number")
+                .setMessage("Stock alerts will be texted to this number.")
+                .setView(input)
+                .setPositiveButton("Save", (d, w) -> {
+                    String phone = input.getText().toString().trim();
+                    if (phone.isEmpty()) return;
+                    getSharedPreferences(StockAlertDispatcher.PREFS, MODE_PRIVATE).edit()
+                            .putString(StockAlertDispatcher.KEY_PHONE, phone)
+                            .apply();
+                    sendTestNotification();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 }
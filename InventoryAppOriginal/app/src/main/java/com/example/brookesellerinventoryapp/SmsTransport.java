@@ -0,0 +1,13 @@
+package com.example.brookesellerinventoryapp;
+
+import java.io.IOException;
+
+/**
+ * Sends one text message. The outbox calls it on its worker thread and retries
+ * on IOException, so an implementation should throw rather than swallow failures.
+ * SmsManagerTransport is the real one; tests plug in a fake.
+ */
+public interface SmsTransport {
+    // body may be longer than one SMS; the transport splits it into parts
+    void send(String destination, String body) throws IOException;
+}
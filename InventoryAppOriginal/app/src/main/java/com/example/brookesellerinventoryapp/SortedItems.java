@@ -0,0 +1,78 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * Helpers to patch a list screen's rows with one ItemChange
+ * instead of running its query again.
+ */
+public final class SortedItems {
+
+    // Grid order used by listItemsPage: name (binary), then id
+    public static final Comparator<Item> BY_NAME_THEN_ID = (a, b) -> {
+        int c = nullToEmpty(a.name).compareTo(nullToEmpty(b.name));
+        return c != 0 ? c : Long.compare(a.id, b.id);
+    };
+
+    // Order used by listItemsWithZeroQty: name ignoring case, then id
+    public static final Comparator<Item> BY_NAME_NOCASE_THEN_ID = (a, b) -> {
+        int c = String.CASE_INSENSITIVE_ORDER.compare(nullToEmpty(a.name), nullToEmpty(b.name));
+        return c != 0 ? c : Long.compare(a.id, b.id);
+    };
+
+    private SortedItems() {}
+
+    /**
+     * Apply one change to a list sorted by {@code order}.
+     * Rows are found by binary search on their sort key, so a change costs
+     * O(log n) plus one array shift. Item names are never edited in place, so a
+     * row's key doesn't move.
+     * @param order    sort order of the list, or null if it is not sorted (rows are
+     *                 then found by a scan and only updated or removed, never inserted)
+     * @param belongs  which rows this screen shows, or null for all rows
+     * @param complete true if the list holds every matching row; if false, a new row
+     *                 that would land after the last one is left for the next page
+     * @return true if the list changed
+     */
+    public static boolean apply(ArrayList<Item> list, ItemChange change,
+                                @Nullable Comparator<Item> order,
+                                @Nullable Predicate<Item> belongs,
+                                boolean complete) {
+        Item it = change.item;
+        if (it == null) return false;
+        boolean keep = change.type != ItemChange.Type.DELETE
+                && (belongs == null || belongs.test(it));
+
+        int at;
+        if (order == null) {
+            at = -1;
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i).id == it.id) { at = i; break; }
+            }
+            if (at < 0) return false;
+        } else {
+            at = Collections.binarySearch(list, it, order);
+        }
+
+        if (at >= 0) {
+            if (keep) list.set(at, it);
+            else list.remove(at);
+            return true;
+        }
+        if (!keep) return false;
+
+        int ins = -at - 1;
+        if (ins == list.size() && !complete) return false; // belongs to a later page
+        list.add(ins, it);
+        return true;
+    }
+
+    private static String nullToEmpty(@Nullable String s) {
+        return s == null ? "" : s;
+    }
+}
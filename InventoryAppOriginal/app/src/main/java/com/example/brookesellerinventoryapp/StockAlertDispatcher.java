@@ -0,0 +1,244 @@
+package com.example.brookesellerinventoryapp;
+
+import android.Manifest;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns stock events into notifications without flooding the shade.
+ *
+ * - Events are collected for a short window, so a bulk change that empties
+ *   300 SKUs posts one group, not 300 notifications.
+ * - A group gets one child per item up to MAX_CHILDREN plus a summary that
+ *   counts the rest. A single alert is posted on its own.
+ * - Each SKU alerts at most once per SKU_COOLDOWN_MS for each kind (low, out),
+ *   so an item bouncing around its reorder point doesn't keep buzzing, but one
+ *   that goes on to run out still says so. The cooldown starts only once an
+ *   alert actually went out (notification or SMS).
+ * - Building and posting happen on the dispatcher's own thread, never on main.
+ * - If an alert number is set and SMS is allowed, the same batch is queued
+ *   on the SMS outbox (every item, not just the first MAX_CHILDREN).
+ *
+ * All state below is only touched on that thread.
+ */
+public final class StockAlertDispatcher implements InventoryChangeFeed.LowStockListener {
+
+    private static final long WINDOW_MS = 2000;
+    private static final long SKU_COOLDOWN_MS = 30 * 60 * 1000L;
+    private static final int MAX_CHILDREN = 8;
+    private static final String GROUP_KEY = "stock_alerts_group";
+    private static final int SUMMARY_ID = -3;
+
+    // where the SMS alert number is kept
+    static final String PREFS = "sms_alerts";
+    static final String KEY_PHONE = "phone";
+
+    private final Context appContext;
+    private final SmsOutbox smsOutbox;
+    private final ScheduledExecutorService worker;
+
+    // sku -> newest alert waiting for the window to close (posting order = arrival order)
+    private final LinkedHashMap<String, Alert> pending = new LinkedHashMap<>();
+    // cooldownKey -> when it last alerted (elapsedRealtime)
+    private final HashMap<String, Long> lastAlerted = new HashMap<>();
+    private boolean flushQueued = false;
+    private boolean channelReady = false;
+
+    private static final class Alert {
+        final Item item;
+        final boolean out;                  // out of stock (else below reorder point)
+
+        Alert(Item item, boolean out) {
+            this.item = item;
+            this.out = out;
+        }
+    }
+
+    StockAlertDispatcher(Context appContext, SmsOutbox smsOutbox) {
+        this.appContext = appContext;
+        this.smsOutbox = smsOutbox;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-alerts");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    @Override
+    public void onLowStock(LowStockEvent event) {
+        // called on the writing thread; hand off right away
+        worker.execute(() -> collect(event));
+    }
+
+    private void collect(LowStockEvent event) {
+        for (Item it : event.restocked) pending.remove(it.sku);
+        for (Item it : event.crossedBelow) {
+            Alert a = pending.get(it.sku);
+            // out of stock says more than low, keep it
+            if (a == null || !a.out) pending.put(it.sku, new Alert(it, false));
+        }
+        for (Item it : event.outOfStock) pending.put(it.sku, new Alert(it, true));
+
+        if (!pending.isEmpty() && !flushQueued) {
+            flushQueued = true;
+            worker.schedule(this::flush, WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        flushQueued = false;
+        long now = SystemClock.elapsedRealtime();
+        pruneCooldowns(now);
+
+        List<Alert> due = new ArrayList<>();
+        for (Alert a : pending.values()) {
+            if (!lastAlerted.containsKey(cooldownKey(a))) due.add(a);
+        }
+        pending.clear();
+        if (due.isEmpty()) return;
+
+        boolean sent = queueSms(due);
+        sent |= post(due);
+        // nothing went out: no cooldown, so the next crossing can alert
+        if (!sent) return;
+        for (Alert a : due) lastAlerted.put(cooldownKey(a), now);
+    }
+
+    // One cooldown per SKU and kind
+    private static String cooldownKey(Alert a) {
+        return (a.out ? "out:" : "low:") + a.item.sku;
+    }
+
+    // Post the batch; false if notifications aren't allowed
+    private boolean post(List<Alert> due) {
+        // runtime permission; without it the alerts are dropped, not saved up
+        if (ContextCompat.checkSelfPermission(appContext, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        if (!channelReady) {
+            Notifications.ensureChannel(appContext);
+            channelReady = true;
+        }
+
+        NotificationManagerCompat nm = NotificationManagerCompat.from(appContext);
+        if (due.size() == 1) {
+            Alert a = due.get(0);
+            nm.notify(Notifications.toNotifId(a.item.id), child(a, false).build());
+            return true;
+        }
+
+        int shown = Math.min(due.size(), MAX_CHILDREN);
+        boolean allOut = true;
+        NotificationCompat.InboxStyle lines = new NotificationCompat.InboxStyle();
+        for (int i = 0; i < due.size(); i++) {
+            Alert a = due.get(i);
+            allOut &= a.out;
+            if (i < shown) {
+                nm.notify(Notifications.toNotifId(a.item.id), child(a, true).build());
+                lines.addLine(lineFor(a));
+            }
+        }
+        if (due.size() > shown) lines.setSummaryText("+" + (due.size() - shown) + " more");
+
+        String title = due.size() + (allOut ? " items out of stock" : " items need restocking");
+        Intent list = StockListActivity.intentFor(appContext,
+                allOut ? StockListActivity.FILTER_ZERO : StockListActivity.FILTER_LOW);
+        NotificationCompat.Builder summary = base(title, lineFor(due.get(0)))
+                .setStyle(lines)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setContentIntent(open(SUMMARY_ID, list));
+        nm.notify(SUMMARY_ID, summary.build());
+        return true;
+    }
+
+    // Queue the batch on the SMS outbox; false if there's no number or no permission
+    private boolean queueSms(List<Alert> due) {
+        String phone = alertNumber(appContext);
+        if (phone == null || ContextCompat.checkSelfPermission(appContext, Manifest.permission.SEND_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        List<String> lines = new ArrayList<>(due.size());
+        for (Alert a : due) lines.add(lineFor(a));
+        smsOutbox.enqueueAlerts(phone, lines);
+        return true;
+    }
+
+    // Number that gets SMS alerts, or null if none was set
+    @Nullable
+    static String alertNumber(Context ctx) {
+        SharedPreferences p = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String phone = p.getString(KEY_PHONE, null);
+        return (phone == null || phone.trim().isEmpty()) ? null : phone.trim();
+    }
+
+    // Forget cooldowns that are over, so the map stays small
+    private void pruneCooldowns(long now) {
+        Iterator<Map.Entry<String, Long>> it = lastAlerted.entrySet().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getValue() >= SKU_COOLDOWN_MS) it.remove();
+        }
+    }
+
+    private NotificationCompat.Builder child(Alert a, boolean grouped) {
+        Item it = a.item;
+        Intent detail = ItemProductActivity.intentFor(appContext, it);
+        String title = a.out ? "Out of stock" : "Low stock";
+        NotificationCompat.Builder b = base(title, lineFor(a))
+                .setContentIntent(open(Notifications.toNotifId(it.id), detail));
+        if (grouped) b.setGroup(GROUP_KEY);
+        return b;
+    }
+
+    private String lineFor(Alert a) {
+        Item it = a.item;
+        String sku = (it.sku == null || it.sku.isEmpty()) ? "" : " (SKU: " + it.sku + ")";
+        return a.out
+                ? it.name + sku + " has reached 0."
+                : it.name + sku + ": " + it.quantity + " left, reorder at " + it.reorderPoint + ".";
+    }
+
+    private NotificationCompat.Builder base(String title, String text) {
+        return new NotificationCompat.Builder(appContext, Notifications.CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_stat_inventory)
+                .setContentTitle(title)
+                .setContentText(text)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setCategory(NotificationCompat.CATEGORY_STATUS)
+                .setAutoCancel(true)
+                .setOnlyAlertOnce(true)
+                .setVisibility(NotificationCompat.VISIBILITY_PRIVATE)
+                .setColor(ContextCompat.getColor(appContext, R.color.brown));
+    }
+
+    // Back goes to MainActivity. A plain two-intent stack, no TaskStackBuilder
+    // manifest lookup per notification.
+    private PendingIntent open(int requestCode, Intent target) {
+        Intent home = new Intent(appContext, MainActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        return PendingIntent.getActivities(appContext, requestCode, new Intent[] { home, target },
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
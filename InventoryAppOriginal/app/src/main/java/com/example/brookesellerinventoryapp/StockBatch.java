@@ -0,0 +1,99 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list of quantity changes from a receiving file or POS export: each line is
+ * either a delta (sku, +/-n) or an absolute count (sku, n). Applied by
+ * InventoryDatabase.applyStockBatch in one transaction.
+ *
+ * Lines for the same SKU run in order: a set replaces what came before it,
+ * deltas after it add on. The result is clamped at 0 once per SKU, not per line.
+ */
+public final class StockBatch {
+
+    // What happened to one input line
+    public enum Outcome {
+        APPLIED,        // written as asked
+        CLAMPED,        // the SKU's total would have gone below 0, stopped at 0
+        UNKNOWN_SKU,    // no item with that SKU; nothing written
+        INVALID         // blank SKU or a negative absolute quantity
+    }
+
+    // One input line
+    static final class Line {
+        final String sku;
+        final boolean absolute;         // true: set to value, false: add value
+        final int value;
+
+        Line(String sku, boolean absolute, int value) {
+            this.sku = sku;
+            this.absolute = absolute;
+            this.value = value;
+        }
+
+        boolean isValid() {
+            return !sku.isEmpty() && (!absolute || value >= 0);
+        }
+    }
+
+    // Per-line result, in input order
+    public static final class Row {
+        public final String sku;
+        public final Outcome outcome;
+        // the SKU's quantity after the whole batch, or -1 if nothing was written
+        public final int quantity;
+
+        Row(String sku, Outcome outcome, int quantity) {
+            this.sku = sku;
+            this.outcome = outcome;
+            this.quantity = quantity;
+        }
+    }
+
+    public static final class Result {
+        public final List<Row> rows;
+        public final int applied, clamped, unknown, invalid;
+        public final long elapsedMs;
+
+        Result(List<Row> rows, long elapsedMs) {
+            this.rows = Collections.unmodifiableList(rows);
+            int a = 0, c = 0, u = 0, i = 0;
+            for (Row r : rows) {
+                switch (r.outcome) {
+                    case APPLIED:     a++; break;
+                    case CLAMPED:     c++; break;
+                    case UNKNOWN_SKU: u++; break;
+                    default:          i++; break;
+                }
+            }
+            this.applied = a;
+            this.clamped = c;
+            this.unknown = u;
+            this.invalid = i;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+
+    final ArrayList<Line> lines = new ArrayList<>();
+
+    /** Add n (may be negative) to the SKU. */
+    public StockBatch delta(@Nullable String sku, int n) {
+        lines.add(new Line(sku == null ? "" : sku.trim(), false, n));
+        return this;
+    }
+
+    /** Set the SKU to exactly n (n must be ≥ 0). */
+    public StockBatch set(@Nullable String sku, int n) {
+        lines.add(new Line(sku == null ? "" : sku.trim(), true, n));
+        return this;
+    }
+
+    public int size() {
+        return lines.size();
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Group commit for quantity changes, coalesced per SKU.
+ *
+ * record() and set() only update that SKU's pending entry in memory: deltas with
+ * the same reason are added together, and a typed quantity replaces whatever was
+ * waiting before it. Each tap stops at 0 on its own, like the screen shows it, so
+ * -1, -1, +1 at 0 ends at 1; the entry keeps the floor that leaves. Pending entries
+ * are written at most FLUSH_DELAY_MS later, in one transaction: one UPDATE and one
+ * ledger row per reason for each SKU. So forty taps on minus cost one commit, not
+ * forty read-modify-writes and fsyncs.
+ *
+ * Screens show the quantity they expect right away with expectedQuantity() or
+ * overlay(); the change feed (and the stock alerts that listen to it) only ever
+ * sees the committed row.
+ *
+ * A batch that fails to write (disk full, say) goes back into the buffer, merged
+ * with whatever was recorded meanwhile, and is tried again RETRY_DELAY_MS later.
+ *
+ * compactIfDue() folds old ledger rows into one baseline row per item.
+ */
+public final class StockLedger {
+
+    // why a quantity changed
+    public static final String REASON_ADJUST = "adjust";     // +/- from a screen
+    public static final String REASON_SET = "set";           // typed a new quantity
+    public static final String REASON_SCAN = "scan";         // barcode scanner
+    public static final String REASON_CREATED = "created";   // opening quantity of a new item
+    public static final String REASON_IMPORT = "import";     // CSV import
+    public static final String REASON_COUNT = "count";       // cycle count correction
+    public static final String REASON_BATCH = "batch";       // receiving file or POS export
+    public static final String REASON_CLAMPED = "clamped";   // stopped at 0
+    public static final String REASON_COMPACTED = "compacted";
+
+    private static final String TAG = "StockLedger";
+    private static final long FLUSH_DELAY_MS = 250;
+    private static final long RETRY_DELAY_MS = 5_000;        // after a failed write
+    private static final int MAX_BUFFER = 500;               // flush early past this
+    private static final long COMPACT_EVERY_MS = 24 * 60 * 60 * 1000L;
+    private static final long KEEP_HISTORY_MS = 30L * 24 * 60 * 60 * 1000L;
+    private static final String KEY_LAST_COMPACTION = "ledger_last_compaction";
+
+    // One change waiting to be written
+    public static final class Movement {
+        public final String sku;
+        public final int delta;                              // the new quantity when absolute
+        public final String reason;
+        public final long at;                                // epoch ms
+        final boolean absolute;
+        final long expectedVersion;                          // absolute only; -1 = don't check
+        final int floor;                                     // lowest quantity the SKU's taps leave; 0 = plain clamp
+
+        Movement(String sku, int delta, String reason, long at) {
+            this(sku, delta, reason, at, false, -1, 0);
+        }
+
+        Movement(String sku, int delta, String reason, long at, int floor) {
+            this(sku, delta, reason, at, false, -1, floor);
+        }
+
+        Movement(String sku, int delta, String reason, long at, boolean absolute, long expectedVersion) {
+            this(sku, delta, reason, at, absolute, expectedVersion, 0);
+        }
+
+        private Movement(String sku, int delta, String reason, long at, boolean absolute,
+                         long expectedVersion, int floor) {
+            this.sku = sku;
+            this.delta = delta;
+            this.reason = reason;
+            this.at = at;
+            this.absolute = absolute;
+            this.expectedVersion = expectedVersion;
+            this.floor = floor;
+        }
+    }
+
+    // Everything waiting for one SKU: an optional typed quantity, then a net delta per reason
+    private static final class Pending {
+        final String sku;
+        int target = -1;                                     // typed quantity, -1 if none
+        long expectedVersion = -1;
+        @Nullable Runnable onConflict;
+        final LinkedHashMap<String, Integer> deltas = new LinkedHashMap<>();
+        // taps clamp one at a time, which comes to max(floor, start + sum of deltas)
+        int floor = 0;
+        long at;
+
+        Pending(String sku) {
+            this.sku = sku;
+        }
+
+        // One tap, clamped at 0 on its own
+        void tap(String reason, int delta) {
+            deltas.merge(reason, delta, Integer::sum);
+            floor = Math.max(0, floor + delta);
+        }
+
+        // Taps that came before this entry's own (a refused batch); same result as replaying them first
+        void tapsBefore(Pending earlier) {
+            int sum = 0;
+            for (int d : deltas.values()) sum += d;
+            floor = Math.max(floor, earlier.floor + sum);
+            for (Map.Entry<String, Integer> e : earlier.deltas.entrySet()) {
+                deltas.merge(e.getKey(), e.getValue(), Integer::sum);
+            }
+        }
+
+        // What this entry does to a quantity, the same as the UPDATE
+        int applyTo(int quantity) {
+            int q = target >= 0 ? target : quantity;
+            for (int d : deltas.values()) q += d;
+            return Math.max(floor, q);
+        }
+
+        void addTo(List<Movement> out) {
+            if (target >= 0) out.add(new Movement(sku, target, REASON_SET, at, true, expectedVersion));
+            for (Map.Entry<String, Integer> e : deltas.entrySet()) {
+                if (e.getValue() != 0) out.add(new Movement(sku, e.getValue(), e.getKey(), at, floor));
+            }
+        }
+    }
+
+    private final InventoryDatabase db;
+    private final Executor writer;
+    private final Handler main;
+    private final SharedPreferences prefs;
+
+    // sku -> pending entry, and the batch being written now (guarded by this)
+    private LinkedHashMap<String, Pending> buffer = new LinkedHashMap<>();
+    private LinkedHashMap<String, Pending> inFlight = new LinkedHashMap<>();
+    private boolean flushQueued = false;
+
+    StockLedger(InventoryDatabase db, Executor writer, Handler main, SharedPreferences prefs) {
+        this.db = db;
+        this.writer = writer;
+        this.main = main;
+        this.prefs = prefs;
+    }
+
+    /** Queue a quantity change; the change feed reports it once it is written. Any thread. */
+    public void record(String sku, int delta, String reason) {
+        if (sku == null || sku.isEmpty() || delta == 0) return;
+        synchronized (this) {
+            pendingFor(sku.trim()).tap(reason, delta);
+            queueFlush();
+        }
+    }
+
+    /**
+     * Queue a typed quantity. It replaces any change still waiting for the SKU.
+     * With expectedVersion >= 0 it is only written if the row is still at that
+     * version; otherwise it is dropped, taps recorded after it are queued again
+     * on their own, and onConflict runs on the main thread. Any thread.
+     */
+    public void set(String sku, int quantity, long expectedVersion, @Nullable Runnable onConflict) {
+        if (sku == null || sku.isEmpty()) return;
+        synchronized (this) {
+            Pending p = pendingFor(sku.trim());
+            p.deltas.clear();
+            p.floor = 0;
+            p.target = Math.max(0, quantity);
+            p.expectedVersion = expectedVersion;
+            p.onConflict = onConflict;
+            queueFlush();
+        }
+    }
+
+    /** The quantity a SKU will have once what's waiting is written. Any thread. */
+    public synchronized int expectedQuantity(String sku, int committed) {
+        int q = committed;
+        Pending p = inFlight.get(sku);
+        if (p != null) q = p.applyTo(q);
+        p = buffer.get(sku);
+        if (p != null) q = p.applyTo(q);
+        return q;
+    }
+
+    /** The row as the user should see it: committed, plus anything still waiting. */
+    public Item overlay(Item it) {
+        int q = expectedQuantity(it.sku, it.quantity);
+        return q == it.quantity ? it : it.withQuantity(q);
+    }
+
+    /** A feed change with overlay() applied to its row. */
+    public ItemChange overlay(ItemChange change) {
+        if (change.type != ItemChange.Type.UPDATE || change.item == null) return change;
+        Item shown = overlay(change.item);
+        return shown == change.item ? change : new ItemChange(ItemChange.Type.UPDATE, shown);
+    }
+
+    private Pending pendingFor(String sku) {
+        Pending p = buffer.get(sku);
+        if (p == null) {
+            p = new Pending(sku);
+            buffer.put(sku, p);
+        }
+        p.at = System.currentTimeMillis();
+        return p;
+    }
+
+    private void queueFlush() {
+        if (buffer.size() >= MAX_BUFFER) {
+            writer.execute(this::flush);
+        } else if (!flushQueued) {
+            flushQueued = true;
+            main.postDelayed(() -> writer.execute(this::flush), FLUSH_DELAY_MS);
+        }
+    }
+
+    // Write everything pending so far in one transaction (writer thread)
+    void flush() {
+        LinkedHashMap<String, Pending> written;
+        List<Movement> batch = new ArrayList<>();
+        synchronized (this) {
+            flushQueued = false;
+            if (buffer.isEmpty()) return;
+            written = buffer;
+            inFlight = buffer;
+            buffer = new LinkedHashMap<>();
+            for (Pending p : written.values()) p.addTo(batch);
+        }
+        Set<String> conflicts;
+        boolean[] committed = { false };
+        try {
+            // in-flight counts as pending until it commits; it's dropped before the
+            // change feed fires so screens don't add it on top of the new row
+            conflicts = db.applyMovements(batch, refused -> {
+                committed[0] = true;
+                afterCommit(written, refused);
+            });
+        } catch (RuntimeException e) {
+            // after the commit the batch is in; only an unwritten one goes back
+            if (committed[0]) throw e;
+            Log.w(TAG, "writing " + written.size() + " SKUs failed, will retry", e);
+            requeue(written);
+            return;
+        } finally {
+            clearInFlight();
+        }
+        for (String sku : conflicts) {
+            Runnable r = written.get(sku).onConflict;
+            if (r != null) main.post(r);
+        }
+    }
+
+    private synchronized void clearInFlight() {
+        if (!inFlight.isEmpty()) inFlight = new LinkedHashMap<>();
+    }
+
+    // The batch is in; a SKU whose typed quantity was refused keeps the taps after it
+    private synchronized void afterCommit(Map<String, Pending> written, Set<String> refused) {
+        clearInFlight();
+        for (String sku : refused) {
+            Pending old = written.get(sku);
+            if (old == null || old.deltas.isEmpty()) continue;
+            Pending now = buffer.get(sku);
+            // a newer typed quantity replaces them anyway
+            if (now != null && now.target >= 0) continue;
+            pendingFor(sku).tapsBefore(old);
+            queueFlush();
+        }
+    }
+
+    // The batch didn't write: put it back in front of what was recorded since, and retry
+    private synchronized void requeue(Map<String, Pending> written) {
+        clearInFlight();
+        for (Pending old : written.values()) {
+            Pending now = buffer.get(old.sku);
+            if (now == null) {
+                buffer.put(old.sku, old);
+            } else if (now.target >= 0) {
+                // a newer typed quantity replaces it anyway
+                continue;
+            } else {
+                // the newer taps go after the old entry's typed quantity and taps
+                if (old.target >= 0) {
+                    now.target = old.target;
+                    now.expectedVersion = old.expectedVersion;
+                    now.onConflict = old.onConflict;
+                }
+                now.tapsBefore(old);
+            }
+        }
+        // not right away: whatever failed (a full disk) won't be fixed in 250 ms
+        if (!flushQueued) {
+            flushQueued = true;
+            main.postDelayed(() -> writer.execute(this::flush), RETRY_DELAY_MS);
+        }
+    }
+
+    /** Fold ledger rows older than KEEP_HISTORY_MS, at most once a day (writer thread). */
+    void compactIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - prefs.getLong(KEY_LAST_COMPACTION, 0) < COMPACT_EVERY_MS) return;
+        db.compactMovements(now - KEEP_HISTORY_MS);
+        prefs.edit().putLong(KEY_LAST_COMPACTION, now).apply();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.brookesellerinventoryapp;
+
+import android.content.Context;
+import android.content.Intent;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.os.Handler;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.appbar.MaterialToolbar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Shows the items that need stock: either those with quantity == 0, or those
+ * below their reorder point, picked by the EXTRA_FILTER intent extra.
+ * Each list walks its own partial index. Reuses InventoryCardAdapter and ItemProductActivity.
+ */
+public class StockListActivity extends AppCompatActivity {
+
+    // Which rows the screen lists
+    static final String EXTRA_FILTER = "EXTRA_FILTER";
+    static final int FILTER_ZERO = 0;   // quantity == 0
+    static final int FILTER_LOW = 1;    // quantity < reorder_point
+
+    static Intent intentFor(Context ctx, int filter) {
+        return new Intent(ctx, StockListActivity.class).putExtra(EXTRA_FILTER, filter);
+    }
+
+    private boolean lowStock;
+
+    // grid of product cards
+    private RecyclerView productGrid;
+    // adapter that binds Item objects to cards
+    private InventoryCardAdapter adapter;
+    // database helper
+    private InventoryDatabase db;
+    private StockLedger ledger;
+    // shared background thread for DB work
+    private Executor io;
+    // handler to post results back to UI thread
+    private Handler main;
+    // shows the count
+    private MaterialToolbar toolbar;
+    // rows on screen, sorted like listItemsWithZeroQty / listLowStockItems
+    private final ArrayList<Item> shown = new ArrayList<>();
+    // reads run next to writes now, so a change can land while the list loads
+    private boolean loading = false;
+    private boolean changedWhileLoading = false;
+    // row changes from any screen: add items that enter the list, drop ones restocked
+    private final InventoryChangeFeed.Listener feedListener =
+            change -> main.post(() -> onItemChanged(ledger.overlay(change)));
+    // out-of-stock count; re-read only when inventory_stats changes (zero filter only)
+    private ObservableQuery<InventoryDatabase.Stats> stats;
+
+    @Override protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        // layout with AppBar + RecyclerView
+        setContentView(R.layout.activity_stock_list);
+        lowStock = getIntent().getIntExtra(EXTRA_FILTER, FILTER_ZERO) == FILTER_LOW;
+
+        // back arrow closes this screen
+        toolbar = findViewById(R.id.topAppBar);
+        if (toolbar != null) {
+            if (lowStock) toolbar.setTitle("Low Stock");
+            toolbar.setNavigationOnClickListener(v -> finish());
+        }
+
+        // shared DB and its thread
+        InventoryRepository repo = InventoryRepository.get(this);
+        db = repo.db();
+        ledger = repo.ledger();
+        io = repo.io();
+        main = repo.main();
+
+        productGrid = findViewById(R.id.productGrid);
+
+        // create adapter with actions for click and long press
+        adapter = new InventoryCardAdapter(new InventoryCardAdapter.OnItemAction() {
+            @Override public void onClick(Item item) {
+                // open details screen; it loads the full row itself
+                startActivity(ItemProductActivity.intentFor(StockListActivity.this, item));
+            }
+            @Override public void onDecrease(Item item) {
+                // quick −1 on long press, shown now; the ledger merges repeats
+                // into one write and the change feed brings back the committed row
+                ledger.record(item.sku, -1, StockLedger.REASON_ADJUST);
+                onItemChanged(new ItemChange(ItemChange.Type.UPDATE,
+                        item.withQuantity(Math.max(0, item.quantity - 1))));
+            }
+        });
+        // 2-column grid on the shared card pool, images preloaded ahead of the scroll
+        InventoryGrid.attach(productGrid, adapter);
+        if (!lowStock) {
+            stats = new ObservableQuery<>(db.room(), io, main,
+                    new String[] { InventoryDatabase.StatsTable.TABLE },
+                    db::getInventoryStats,
+                    s -> showZeroCount(s.zeroCount));
+        }
+
+        // load once; the feed keeps the list current after that
+        InventoryChangeFeed.addListener(feedListener);
+        loadRows();
+    }
+
+    @Override protected void onStart() {
+        super.onStart();
+        if (stats != null) stats.start();
+    }
+
+    @Override protected void onStop() {
+        super.onStop();
+        if (stats != null) stats.stop();
+    }
+
+    @Override protected void onDestroy() {
+        super.onDestroy();
+        InventoryChangeFeed.removeListener(feedListener);
+        InventoryGrid.detach(productGrid);                     // cards go back to the pool
+        if (stats != null) stats.close();
+    }
+
+    // load the filtered items on background thread
+    private void loadRows() {
+        loading = true;
+        changedWhileLoading = false;
+        // rows whose stamp hasn't moved come back as the same objects, so the diff skips them
+        final List<Item> previous = new ArrayList<>(shown);
+        io.execute(() -> {
+            List<Item> items;
+            try (Cursor c = lowStock ? db.listLowStockItems() : db.listItemsWithZeroQty()) {
+                items = InventoryDatabase.readItems(c, InventoryDatabase.byId(previous));
+            }
+            // push results to adapter on UI thread
+            main.post(() -> {
+                loading = false;
+                shown.clear();
+                shown.addAll(items);
+                adapter.submitList(items);
+                showLowCount();
+                // show what we have, then read once more: the rows may predate that change
+                if (changedWhileLoading) loadRows();
+            });
+        });
+    }
+
+    // count in the toolbar; comes from the stats row, not from counting rows
+    private void showZeroCount(long zeroCount) {
+        if (toolbar != null) toolbar.setSubtitle(zeroCount + " out of stock");
+    }
+
+    // no stats row for low stock; the list holds every such row, so count it
+    private void showLowCount() {
+        if (lowStock && toolbar != null) toolbar.setSubtitle(shown.size() + " below reorder point");
+    }
+
+    private boolean belongs(Item it) {
+        return lowStock ? LowStockEvent.isLow(it.quantity, it.reorderPoint) : it.quantity == 0;
+    }
+
+    // Patch the list with one row change (main thread)
+    private void onItemChanged(ItemChange change) {
+        if (isDestroyed()) return;
+        if (loading) {
+            // re-read once after the current load is shown
+            changedWhileLoading = true;
+            return;
+        }
+        if (change.type == ItemChange.Type.RELOAD) {
+            loadRows();
+            return;
+        }
+        if (SortedItems.apply(shown, change, SortedItems.BY_NAME_NOCASE_THEN_ID,
+                this::belongs, true)) {
+            adapter.submitList(new ArrayList<>(shown));
+            showLowCount();
+        }
+    }
+}
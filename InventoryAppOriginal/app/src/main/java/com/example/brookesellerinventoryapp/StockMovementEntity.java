@@ -0,0 +1,40 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Room entity for the stock_movements ledger: one row per quantity change, append-only.
+ * No secondary indexes, so an insert is a plain append at the end of the rowid tree.
+ * For every live item, SUM(delta) equals its quantity.
+ */
+@Entity(tableName = StockMovementEntity.TABLE)
+public class StockMovementEntity {
+
+    static final String TABLE = "stock_movements";
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @ColumnInfo(name = "item_id")
+    public long itemId;
+
+    @NonNull
+    public String sku = "";
+
+    public int delta;
+
+    @NonNull
+    public String reason = "";
+
+    // who was signed in (auth_session), null for system writes
+    @Nullable
+    public String username;
+
+    // epoch ms
+    @ColumnInfo(name = "created_at")
+    public long createdAt;
+}
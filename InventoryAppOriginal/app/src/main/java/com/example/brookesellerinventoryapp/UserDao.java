@@ -0,0 +1,38 @@
+package com.example.brookesellerinventoryapp;
+
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+// Room queries for the users table, checked against UserEntity at compile time
+@Dao
+public interface UserDao {
+
+    // -1 if the username is taken
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insert(UserEntity user);
+
+    @Query("SELECT EXISTS(SELECT 1 FROM users WHERE username = :username)")
+    boolean exists(String username);
+
+    @Query("SELECT EXISTS(SELECT 1 FROM users WHERE username = :username AND password = :password)")
+    boolean matches(String username, String password);
+
+    @Query("UPDATE users SET password = :password WHERE username = :username")
+    int changePassword(String username, String password);
+
+    @Query("DELETE FROM users WHERE _id = :id")
+    int deleteById(long id);
+
+    // For the CursorAdapters on the password screens (they need _id)
+    @Query("SELECT _id, username, password FROM users ORDER BY username ASC")
+    Cursor listAll();
+
+    @Nullable
+    @Query("SELECT username FROM users ORDER BY _id ASC LIMIT 1")
+    String firstUsername();
+}
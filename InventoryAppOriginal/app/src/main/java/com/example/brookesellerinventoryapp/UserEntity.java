@@ -0,0 +1,30 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// Room entity for the users table (login accounts)
+@Entity(tableName = "users",
+        indices = @Index(value = "username", name = "idx_users_username", unique = true))
+public class UserEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "_id")
+    public long id;
+
+    @NonNull
+    @ColumnInfo(name = "username")
+    public String username = "";
+
+    @NonNull
+    @ColumnInfo(name = "password")
+    public String password = "";            // plaintext for demo only
+
+    @Nullable
+    @ColumnInfo(name = "employee_name")
+    public String employeeName;
+}
@@ -0,0 +1,10 @@
+package com.example.brookesellerinventoryapp;
+
+import androidx.room.Database;
+import androidx.room.RoomDatabase;
+
+// Room database behind LoginDatabase (file login.db)
+@Database(entities = { UserEntity.class }, version = LoginDatabase.VERSION, exportSchema = false)
+public abstract class UserRoomDatabase extends RoomDatabase {
+    public abstract UserDao users();
+}
@@ -0,0 +1,231 @@
+package com.example.brookesellerinventoryapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * SMS outbox on the plain JVM: an in-memory store, a fake transport and a
+ * hand-moved clock stand in for Room, SmsManager and the wall clock.
+ */
+public class SmsOutboxTest {
+
+    private static final String PHONE = "+15555550100";
+
+    private long now = 1_000_000L;
+    private MemoryStore store;
+    private FakeTransport transport;
+    private ScheduledExecutorService worker;
+    private SmsOutbox outbox;
+
+    @Before
+    public void setUp() {
+        store = new MemoryStore();
+        transport = new FakeTransport();
+        worker = Executors.newSingleThreadScheduledExecutor();
+        outbox = new SmsOutbox(store, transport, worker, () -> now);
+    }
+
+    @After
+    public void tearDown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    public void packsManyAlertsIntoFewMessages() throws Exception {
+        List<String> lines = alertLines(300);
+        outbox.enqueueAlerts(PHONE, lines);
+        idle();
+
+        // every line arrives exactly once, in order
+        List<String> received = new ArrayList<>();
+        for (String body : transport.bodies) {
+            assertTrue("message too long: " + body.length(), body.length() <= SmsOutbox.MAX_MESSAGE_CHARS);
+            String[] parts = body.split("\n");
+            assertTrue(parts[0].startsWith("Stock alert"));
+            for (int i = 1; i < parts.length; i++) received.add(parts[i]);
+        }
+        assertEquals(lines, received);
+
+        int chars = 0;
+        for (String l : lines) chars += l.length() + 1;
+        int floor = (chars + SmsOutbox.MAX_MESSAGE_CHARS - 1) / SmsOutbox.MAX_MESSAGE_CHARS;
+        // greedy packing wastes at most one line per message
+        assertTrue(transport.bodies.size() <= floor * 2);
+        assertEquals(transport.bodies.size(), outbox.sentCount());
+        assertNull(store.nextDueAt());
+    }
+
+    @Test
+    public void headerGrowsPastNinetyNineMessages() {
+        List<String> lines = alertLines(5_000);
+        List<String> bodies = SmsOutbox.pack(lines, SmsOutbox.MAX_MESSAGE_CHARS);
+        assertTrue(bodies.size() >= 100);
+
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < bodies.size(); i++) {
+            String body = bodies.get(i);
+            assertTrue("message too long: " + body.length(), body.length() <= SmsOutbox.MAX_MESSAGE_CHARS);
+            String[] parts = body.split("\n");
+            assertEquals("Stock alert " + (i + 1) + "/" + bodies.size(), parts[0]);
+            for (int k = 1; k < parts.length; k++) received.add(parts[k]);
+        }
+        assertEquals(lines, received);
+    }
+
+    @Test
+    public void retriesWithBackoffThenSends() {
+        transport.failuresLeft = 2;
+        store.add(PHONE, "Stock alert\nWidget has reached 0.", now);
+
+        outbox.drain();
+        assertEquals(0, outbox.sentCount());
+        assertEquals(now + SmsOutbox.backoffMs(1), (long) store.nextDueAt());
+
+        now += SmsOutbox.backoffMs(1) - 1;
+        outbox.drain();                            // not due yet
+        assertEquals(1, outbox.failedTryCount());
+
+        now += 1;
+        outbox.drain();                            // second failure
+        assertEquals(now + SmsOutbox.backoffMs(2), (long) store.nextDueAt());
+
+        now += SmsOutbox.backoffMs(2);
+        outbox.drain();
+        assertEquals(1, outbox.sentCount());
+        assertEquals(2, outbox.failedTryCount());
+        assertNull(store.nextDueAt());
+    }
+
+    @Test
+    public void dropsAfterMaxAttempts() {
+        transport.failuresLeft = Integer.MAX_VALUE;
+        store.add(PHONE, "Stock alert\nWidget has reached 0.", now);
+        for (int i = 0; i < SmsOutbox.MAX_ATTEMPTS; i++) {
+            outbox.drain();
+            Long next = store.nextDueAt();
+            if (next != null) now = next;
+        }
+        assertEquals(1, outbox.droppedCount());
+        assertEquals(0, outbox.sentCount());
+        assertNull(store.nextDueAt());
+    }
+
+    @Test
+    public void backoffDoublesAndCaps() {
+        assertEquals(5_000, SmsOutbox.backoffMs(1));
+        assertEquals(10_000, SmsOutbox.backoffMs(2));
+        assertEquals(20_000, SmsOutbox.backoffMs(3));
+        assertEquals(SmsOutbox.MAX_BACKOFF_MS, SmsOutbox.backoffMs(40));
+    }
+
+    @Test
+    public void throughputAgainstFakeTransport() throws Exception {
+        int batches = 200;
+        for (int b = 0; b < batches; b++) outbox.enqueueAlerts(PHONE, alertLines(25));
+        idle();
+        assertEquals(transport.bodies.size(), outbox.sentCount());
+        int lines = 0;
+        for (String body : transport.bodies) {
+            assertTrue("message too long: " + body.length(), body.length() <= SmsOutbox.MAX_MESSAGE_CHARS);
+            lines += body.split("\n").length - 1;
+        }
+        assertEquals(batches * 25, lines);
+    }
+
+    // Wait until the worker has run everything queued so far
+    private void idle() throws Exception {
+        worker.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+
+    private static List<String> alertLines(int n) {
+        List<String> lines = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) lines.add("Widget " + i + " (SKU: W-" + i + ") has reached 0.");
+        return lines;
+    }
+
+    // Keeps every body it is handed, after failing the first failuresLeft sends
+    private static final class FakeTransport implements SmsTransport {
+        final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+        volatile int failuresLeft = 0;
+
+        @Override
+        public void send(String destination, String body) throws IOException {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IOException("no service");
+            }
+            bodies.add(body);
+        }
+    }
+
+    private static final class MemoryStore implements SmsOutbox.Store {
+        private static final class Row {
+            final long id;
+            final String destination, body;
+            int attempts;
+            long nextAt;
+
+            Row(long id, String destination, String body, long nextAt) {
+                this.id = id;
+                this.destination = destination;
+                this.body = body;
+                this.nextAt = nextAt;
+            }
+        }
+
+        private final List<Row> rows = new ArrayList<>();
+        private long nextId = 1;
+
+        @Override
+        public synchronized long add(String destination, String body, long nextAttemptAt) {
+            rows.add(new Row(nextId, destination, body, nextAttemptAt));
+            return nextId++;
+        }
+
+        @Override
+        public synchronized List<SmsOutbox.Message> due(long now, int limit) {
+            List<SmsOutbox.Message> out = new ArrayList<>();
+            for (Row r : rows) {
+                if (out.size() == limit) break;
+                if (r.nextAt <= now) out.add(new SmsOutbox.Message(r.id, r.destination, r.body, r.attempts));
+            }
+            return out;
+        }
+
+        @Override
+        public synchronized void delete(long id) {
+            for (Iterator<Row> it = rows.iterator(); it.hasNext(); ) {
+                if (it.next().id == id) it.remove();
+            }
+        }
+
+        @Override
+        public synchronized void retryLater(long id, int attempts, long nextAttemptAt) {
+            for (Row r : rows) {
+                if (r.id == id) {
+                    r.attempts = attempts;
+                    r.nextAt = nextAttemptAt;
+                }
+            }
+        }
+
+        @Override
+        public synchronized Long nextDueAt() {
+            Long min = null;
+            for (Row r : rows) if (min == null || r.nextAt < min) min = r.nextAt;
+            return min;
+        }
+    }
+}